@@ -0,0 +1,125 @@
+package edu.brown.cs.student.main.CreatorFromRow;
+
+import edu.brown.cs.student.main.Exceptions.FactoryFailureException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Quick Summary:
+ * Implements a strategy for creating lists of strings that share repeated cell values.
+ * Keeps a bounded dictionary per column; a cell equal to a value already in its column's
+ * dictionary is replaced by that single shared instance, so heap use grows with distinct values
+ * rather than total cells. Once a column's dictionary is full, new values pass through unchanged.
+ * Tracks dictionary hits and misses so the hit rate can be reported after parsing; /loadcsv
+ * includes them in its response.
+ */
+
+/**
+ * Implements a strategy for creating lists of strings that share repeated cell values.
+ */
+public class InterningCreatorFromRow implements CreatorFromRow<List<String>> {
+  // default maximum number of distinct values remembered per column
+  public static final int DEFAULT_MAX_ENTRIES = 1 << 16;
+
+  private final int maxEntries; // maximum number of distinct values remembered per column
+  private final List<Map<String, String>> dictionaries; // one dictionary per column
+  private long hits; // cells replaced by a shared instance
+  private long misses; // cells not found in their column's dictionary
+
+  /**
+   * Constructs an InterningCreatorFromRow with the default dictionary bound.
+   */
+  public InterningCreatorFromRow() {
+    this(DEFAULT_MAX_ENTRIES);
+  }
+
+  /**
+   * Constructs an InterningCreatorFromRow with the specified dictionary bound.
+   *
+   * @param maxEntries - the maximum number of distinct values remembered per column.
+   */
+  public InterningCreatorFromRow(int maxEntries) {
+    this.maxEntries = maxEntries;
+    this.dictionaries = new ArrayList<>();
+    this.hits = 0;
+    this.misses = 0;
+  }
+
+  /**
+   * Creates a list of strings from the specified row, sharing values seen before in each column.
+   *
+   * @param row - the list of strings representing the row.
+   * @return - the created list of strings.
+   * @throws FactoryFailureException - if an error occurs during object creation.
+   */
+  public List<String> create(List<String> row) throws FactoryFailureException {
+    List<String> interned = new ArrayList<>(row.size());
+    for (int col = 0; col < row.size(); col++) {
+      if (col == dictionaries.size()) {
+        dictionaries.add(new HashMap<>());
+      }
+      Map<String, String> dictionary = dictionaries.get(col);
+      String value = row.get(col);
+      String shared = dictionary.get(value);
+      if (shared != null) {
+        hits++;
+        interned.add(shared);
+      } else {
+        misses++;
+        if (dictionary.size() < maxEntries) {
+          dictionary.put(value, value);
+        }
+        interned.add(value);
+      }
+    }
+    return interned;
+  }
+
+  /**
+   * Returns the number of cells that were replaced by a shared instance.
+   *
+   * @return - the number of dictionary hits.
+   */
+  public long hits() {
+    return this.hits;
+  }
+
+  /**
+   * Returns the number of cells that were not found in their column's dictionary.
+   *
+   * @return - the number of dictionary misses.
+   */
+  public long misses() {
+    return this.misses;
+  }
+
+  /**
+   * Returns the fraction of cells that were replaced by a shared instance.
+   *
+   * @return - the dictionary hit rate, or 0 if no cells have been seen.
+   */
+  public double hitRate() {
+    long total = hits + misses;
+    return total == 0 ? 0 : (double) hits / total;
+  }
+
+  /**
+   * Returns the hits, misses and hit rate so far, ready to report.
+   *
+   * @return - the dictionary statistics.
+   */
+  public Stats stats() {
+    return new Stats(hits(), misses(), hitRate());
+  }
+
+  /**
+   * Dictionary statistics of one parse.
+   *
+   * @param hits - the cells replaced by a shared instance.
+   * @param misses - the cells not found in their column's dictionary.
+   * @param hitRate - the fraction of cells replaced by a shared instance.
+   */
+  public record Stats(long hits, long misses, double hitRate) {}
+}
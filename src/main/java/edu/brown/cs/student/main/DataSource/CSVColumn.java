@@ -0,0 +1,117 @@
+package edu.brown.cs.student.main.DataSource;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.IntPredicate;
+
+/**
+ * Quick Summary:
+ * Defines one column of a columnar CSV dataset.
+ * Provides random access to the cell at a given row; cells past the end of a short row are null.
+ * Searches test cells through matcher(), which typed columns answer without building cell text.
+ * Chooses a dictionary encoding for low-cardinality columns and a plain array otherwise.
+ * When asked to infer types, first tries storing numbers and dates as primitive values.
+ */
+
+/**
+ * Defines one column of a columnar CSV dataset.
+ */
+public interface CSVColumn {
+
+  // largest dictionary a column may be encoded with
+  int MAX_DICTIONARY_SIZE = 1 << 16;
+  // rough heap cost of a String apart from its characters: object and array headers
+  long STRING_OVERHEAD = 40;
+
+  /**
+   * Returns the number of rows in the column.
+   *
+   * @return - the number of rows.
+   */
+  int size();
+
+  /**
+   * Returns the cell at the specified row.
+   *
+   * @param row - the row index.
+   * @return - the cell value, or null if the row has no cell in this column.
+   */
+  String get(int row);
+
+  /**
+   * Returns a test of whether the cell at a row equals, or contains, the specified text.
+   * Columns that do not hold their cells as strings override this to avoid building each cell.
+   *
+   * @param text - the text to look for.
+   * @param exact - true to match whole cells, false to match cells containing the text.
+   * @return - the test, which never matches a null cell; safe to call from several threads.
+   */
+  default IntPredicate matcher(String text, boolean exact) {
+    return row -> {
+      String cell = get(row);
+      return cell != null && (exact ? cell.equals(text) : cell.contains(text));
+    };
+  }
+
+  /**
+   * Estimates the heap used by the column, counting shared cell values once per occurrence.
+   *
+   * @return - the estimated size in bytes.
+   */
+  long bytes();
+
+  /**
+   * Returns the type the column is stored as.
+   *
+   * @return - the column type.
+   */
+  default ColumnType type() {
+    return ColumnType.STRING;
+  }
+
+  /**
+   * Estimates the heap used by a cell value.
+   *
+   * @param value - the value, or null.
+   * @return - the estimated size in bytes, assuming two bytes per character.
+   */
+  static long bytes(String value) {
+    return value == null ? 0 : STRING_OVERHEAD + 2L * value.length();
+  }
+
+  /**
+   * Encodes the specified values as a column. Values are dictionary-encoded when the column has
+   * at most MAX_DICTIONARY_SIZE distinct values and each value repeats at least twice on average.
+   *
+   * @param values - the cell values, one per row; null marks a missing cell.
+   * @return - the encoded column.
+   */
+  static CSVColumn encode(String[] values) {
+    return encode(values, false);
+  }
+
+  /**
+   * Encodes the specified values as a column, optionally inferring a primitive type from a sample
+   * of the values. Columns that are not numbers or dates are encoded as by encode(values).
+   *
+   * @param values - the cell values, one per row; null marks a missing cell.
+   * @param inferTypes - whether to try storing the values as numbers or dates.
+   * @return - the encoded column.
+   */
+  static CSVColumn encode(String[] values, boolean inferTypes) {
+    if (inferTypes) {
+      TypedColumn typed = TypedColumn.infer(values);
+      if (typed != null) {
+        return typed;
+      }
+    }
+    int limit = Math.min(MAX_DICTIONARY_SIZE, values.length / 2);
+    Map<String, Integer> codes = new HashMap<>();
+    for (String value : values) {
+      if (value != null && codes.putIfAbsent(value, codes.size()) == null && codes.size() > limit) {
+        return new StringColumn(values);
+      }
+    }
+    return new DictionaryColumn(values, codes);
+  }
+}
@@ -2,17 +2,292 @@ package edu.brown.cs.student.main.DataSource;
 
 /**
  * Quick Summary:
- * Represents CSV data in the form of a matrix.
- * Stores a matrix of strings representing CSV data.
+ * Represents CSV data in columnar form.
+ * Stores one CSVColumn per column, dictionary-encoded where cardinality is low, instead of one
+ * list of strings per row. Row-oriented access remains available through the mtrx() view.
+ * Builds an inverted index per column lazily, the first time an exact-match search needs it.
+ * Likewise builds a sorted index of a column's numeric values the first time it is range-searched.
+ * Optionally builds trigram indexes for substring search, within a configurable memory budget.
+ * Keeps lazily built lowercase shadow columns so case-insensitive searches compare without allocating.
+ * Can store numeric and date columns as primitive arrays, with types inferred from a sample.
+ * Stamps each dataset with a version from a process-wide counter, so a dataset built later always
+ * has a higher version and responses derived from a dataset can be validated against it.
  */
 
+import java.util.AbstractList;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
- * Represents CSV data in the form of a matrix.
- * @param mtrx - the matrix to set as the current CSV matrix.
+ * Represents CSV data in columnar form.
  */
-public record CSVData(List<List<String>> mtrx) {
+public final class CSVData {
+  private static final AtomicLong VERSIONS = new AtomicLong(); // last version handed out
 
-}
+  private final long version; // unique, increasing in construction order
+  private final long bytes; // estimated heap used by the columns
+  private final CSVColumn[] columns; // one column per CSV column
+  private final int rows; // number of rows
+  private final int[] widths; // number of cells in each row, or null if every row is full width
+  private final List<List<String>> view; // row-oriented view of the columns
+  private final ConcurrentMap<Integer, ColumnIndex> indexes; // lazily built exact-match indexes
+  private final ConcurrentMap<Integer, SortedIndex> sorted; // lazily built range indexes
+  private final ConcurrentMap<Integer, CSVColumn> folded; // lazily built lowercase shadow columns
+  private final ConcurrentMap<Integer, Optional<TrigramIndex>> trigrams; // lazily built trigram indexes
+  private final AtomicLong trigramBudget; // bytes still available to trigram indexes
+
+  /**
+   * Constructs CSVData from a row-oriented matrix, without trigram indexing.
+   *
+   * @param mtrx - the matrix to store, as a list of rows.
+   */
+  public CSVData(List<List<String>> mtrx) {
+    this(mtrx, 0);
+  }
+
+  /**
+   * Constructs CSVData from a row-oriented matrix, transposing it into columns.
+   * Rows may have different lengths; a null matrix is treated as empty.
+   *
+   * @param mtrx - the matrix to store, as a list of rows.
+   * @param trigramBudget - the total heap, in bytes, trigram indexes may use; 0 disables them.
+   */
+  public CSVData(List<List<String>> mtrx, long trigramBudget) {
+    this(mtrx, trigramBudget, false);
+  }
+
+  /**
+   * Constructs CSVData from a row-oriented matrix, transposing it into columns.
+   * Rows may have different lengths; a null matrix is treated as empty.
+   *
+   * @param mtrx - the matrix to store, as a list of rows.
+   * @param trigramBudget - the total heap, in bytes, trigram indexes may use; 0 disables them.
+   * @param inferTypes - whether to store numeric and date columns as primitive values.
+   */
+  public CSVData(List<List<String>> mtrx, long trigramBudget, boolean inferTypes) {
+    this.version = VERSIONS.incrementAndGet();
+    this.rows = mtrx == null ? 0 : mtrx.size();
+    int cols = 0;
+    boolean ragged = false;
+    for (int row = 0; row < rows; row++) {
+      int width = mtrx.get(row).size();
+      ragged |= row > 0 && width != cols;
+      cols = Math.max(cols, width);
+    }
+    this.widths = ragged ? new int[rows] : null;
+    if (ragged) {
+      for (int row = 0; row < rows; row++) {
+        widths[row] = mtrx.get(row).size();
+      }
+    }
+    this.columns = new CSVColumn[cols];
+    String[] values = new String[rows];
+    for (int col = 0; col < cols; col++) {
+      for (int row = 0; row < rows; row++) {
+        List<String> cells = mtrx.get(row);
+        values[row] = col < cells.size() ? cells.get(col) : null;
+      }
+      columns[col] = CSVColumn.encode(values.clone(), inferTypes);
+    }
+    long bytes = widths == null ? 0 : 16 + 4L * rows;
+    for (CSVColumn column : columns) {
+      bytes += column.bytes();
+    }
+    this.bytes = bytes;
+    this.view = new RowView();
+    this.indexes = new ConcurrentHashMap<>();
+    this.sorted = new ConcurrentHashMap<>();
+    this.folded = new ConcurrentHashMap<>();
+    this.trigrams = new ConcurrentHashMap<>();
+    this.trigramBudget = new AtomicLong(trigramBudget);
+  }
+
+  /**
+   * Returns a read-only, row-oriented view of the data.
+   *
+   * @return - the data as a list of rows.
+   */
+  public List<List<String>> mtrx() {
+    return this.view;
+  }
+
+  /**
+   * Returns the version of this dataset.
+   *
+   * @return - a version no other dataset in this process has; later datasets have higher versions.
+   */
+  public long version() {
+    return this.version;
+  }
+
+  /**
+   * Estimates the heap used by the data, not counting indexes built for searching.
+   *
+   * @return - the estimated size in bytes.
+   */
+  public long bytes() {
+    return this.bytes;
+  }
+
+  /**
+   * Returns the number of rows.
+   *
+   * @return - the number of rows.
+   */
+  public int rowCount() {
+    return this.rows;
+  }
+
+  /**
+   * Returns the number of columns, i.e. the width of the widest row.
+   *
+   * @return - the number of columns.
+   */
+  public int colCount() {
+    return this.columns.length;
+  }
+
+  /**
+   * Returns the number of cells in the specified row.
+   *
+   * @param row - the row index.
+   * @return - the number of cells in the row.
+   */
+  public int width(int row) {
+    return this.widths == null ? this.columns.length : this.widths[row];
+  }
 
+  /**
+   * Returns the specified column.
+   *
+   * @param col - the column index.
+   * @return - the column.
+   */
+  public CSVColumn column(int col) {
+    return this.columns[col];
+  }
+
+  /**
+   * Returns the cell at the specified row and column.
+   *
+   * @param row - the row index.
+   * @param col - the column index.
+   * @return - the cell value, or null if the row has no cell in this column.
+   */
+  public String get(int row, int col) {
+    return this.columns[col].get(row);
+  }
+
+  /**
+   * Returns a lowercase copy of the specified column, building it on first use.
+   * A dictionary column only has its dictionary folded, and a typed column only its verbatim cells
+   * since formatted numbers and dates have no case; a plain column reuses every cell that is
+   * already lowercase, so only cells with uppercase characters cost extra memory.
+   *
+   * @param col - the column index.
+   * @return - the column with every cell lowercased as by String.toLowerCase().
+   */
+  public CSVColumn foldedColumn(int col) {
+    return this.folded.computeIfAbsent(col, k -> {
+      CSVColumn column = columns[col];
+      if (column instanceof DictionaryColumn dictionary) {
+        return dictionary.mapValues(String::toLowerCase);
+      }
+      if (column instanceof TypedColumn typed) {
+        return typed.mapExceptions(String::toLowerCase);
+      }
+      String[] values = new String[column.size()];
+      for (int row = 0; row < values.length; row++) {
+        String cell = column.get(row);
+        values[row] = cell == null ? null : cell.toLowerCase();
+      }
+      return new StringColumn(values);
+    });
+  }
+
+  /**
+   * Returns the exact-match index for the specified column, building it on first use.
+   * Concurrent callers share a single build.
+   *
+   * @param col - the column index.
+   * @param caseSensitive - whether the index distinguishes case.
+   * @return - the index over the column.
+   */
+  public ColumnIndex exactIndex(int col, boolean caseSensitive) {
+    int key = 2 * col + (caseSensitive ? 1 : 0);
+    return this.indexes.computeIfAbsent(key, k -> new ColumnIndex(columns[col], caseSensitive));
+  }
+
+  /**
+   * Returns the sorted index of the specified column's numeric values, building it on first use.
+   * Concurrent callers share a single build.
+   *
+   * @param col - the column index.
+   * @return - the index over the column.
+   */
+  public SortedIndex sortedIndex(int col) {
+    return this.sorted.computeIfAbsent(col, k -> new SortedIndex(columns[col]));
+  }
+
+  /**
+   * Returns the trigram index for the specified column, building it on first use.
+   * An index that would not fit in the remaining budget is never kept, and null is returned
+   * for that column from then on. Indexes of different columns may be built concurrently, so each
+   * reserves its bytes atomically once built, and is dropped if another build took them first.
+   *
+   * @param col - the column index, or -1 to index every column of each row together.
+   * @return - the index, or null if it does not fit within the budget.
+   */
+  public TrigramIndex trigramIndex(int col) {
+    return this.trigrams.computeIfAbsent(col, k -> {
+      int[] cols = new int[col == -1 ? columns.length : 1];
+      for (int i = 0; i < cols.length; i++) {
+        cols[i] = col == -1 ? i : col;
+      }
+      TrigramIndex index = TrigramIndex.build(this, cols, trigramBudget.get());
+      while (index != null) {
+        long left = trigramBudget.get();
+        if (index.bytes() > left) {
+          index = null;
+        } else if (trigramBudget.compareAndSet(left, left - index.bytes())) {
+          break;
+        }
+      }
+      return Optional.ofNullable(index);
+    }).orElse(null);
+  }
+
+  /**
+   * A read-only list of rows, each itself a read-only view onto the columns.
+   */
+  private final class RowView extends AbstractList<List<String>> {
+    @Override
+    public List<String> get(int row) {
+      if (row < 0 || row >= rows) {
+        throw new IndexOutOfBoundsException("Row " + row + " out of bounds for " + rows + " rows");
+      }
+      return new AbstractList<>() {
+        @Override
+        public String get(int col) {
+          if (col < 0 || col >= width(row)) {
+            throw new IndexOutOfBoundsException("Column " + col + " out of bounds for row " + row);
+          }
+          return columns[col].get(row);
+        }
+
+        @Override
+        public int size() {
+          return width(row);
+        }
+      };
+    }
+
+    @Override
+    public int size() {
+      return rows;
+    }
+  }
+}
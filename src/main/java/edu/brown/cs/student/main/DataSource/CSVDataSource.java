@@ -2,11 +2,14 @@ package edu.brown.cs.student.main.DataSource;
 
 import edu.brown.cs.student.main.Exceptions.DatasourceException;
 import java.util.List;
+import java.util.function.BiConsumer;
 
 /**
  * Quick Summary:
  * Defines methods for interacting with a CSV data source.
  * Provides functionality to retrieve the current CSV matrix and set a new CSV matrix.
+ * Sources may also hold additional datasets under names; the current matrix is the unnamed one.
+ * Listeners can be told when a dataset is replaced or evicted, to drop anything derived from it.
  */
 
 /**
@@ -28,4 +31,54 @@ public interface CSVDataSource {
      * @throws DatasourceException - if an error occurs while setting the new CSV matrix.
      */
     void setCurrentMatrix(List<List<String>> filepath) throws DatasourceException;
-}
\ No newline at end of file
+
+    /**
+     * Retrieves the dataset loaded under the specified name.
+     * Sources that only hold one dataset support just the null name.
+     *
+     * @param name - the name of the dataset, or null for the current matrix.
+     * @return - the dataset, or null if none is loaded under the name.
+     */
+    default CSVData getMatrix(String name) {
+        return name == null ? getCurrentMatrix() : null;
+    }
+
+    /**
+     * Loads the specified matrix under the specified name, replacing any dataset of that name.
+     * Sources that only hold one dataset support just the null name.
+     *
+     * @param name - the name of the dataset, or null for the current matrix.
+     * @param mtrx - the matrix to load.
+     * @throws DatasourceException - if the dataset cannot be stored under the name.
+     */
+    default void setMatrix(String name, List<List<String>> mtrx) throws DatasourceException {
+        if (name != null) {
+            throw new DatasourceException("Named datasets are not supported by this source");
+        }
+        setCurrentMatrix(mtrx);
+    }
+
+    /**
+     * Loads the specified matrix under the specified name, optionally storing numeric and date
+     * columns as primitive values. Sources that cannot store typed columns load it as text.
+     *
+     * @param name - the name of the dataset, or null for the current matrix.
+     * @param mtrx - the matrix to load.
+     * @param inferTypes - whether to infer column types from a sample of each column.
+     * @throws DatasourceException - if the dataset cannot be stored under the name.
+     */
+    default void setMatrix(String name, List<List<String>> mtrx, boolean inferTypes)
+            throws DatasourceException {
+        setMatrix(name, mtrx);
+    }
+
+    /**
+     * Registers a callback run after a loaded dataset is replaced or evicted, so that caches built
+     * on it can be dropped. Sources that never report removals ignore the callback.
+     *
+     * @param listener - called with the dataset's name, empty for the current matrix, and the
+     *                 dataset that was removed.
+     */
+    default void addRemovalListener(BiConsumer<String, CSVData> listener) {
+    }
+}
@@ -0,0 +1,155 @@
+package edu.brown.cs.student.main.DataSource;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.IntPredicate;
+
+/**
+ * Quick Summary:
+ * An inverted index over one CSV column, mapping each distinct cell value to the rows holding it.
+ * Used to answer exact-match searches without scanning the column.
+ * A case-insensitive index keys every cell by its lowercase form, mirroring UtilitySearch.match.
+ * Long posting lists are kept as compressed RowBitmaps where that is smaller than an int[], so
+ * the values of a low-cardinality column cost a few bits per row instead of four bytes.
+ */
+
+/**
+ * An inverted index over one CSV column, mapping each distinct cell value to the rows holding it.
+ */
+public class ColumnIndex {
+  // returned for values that occur in no row
+  private static final int[] NO_ROWS = new int[0];
+
+  // posting lists at least this long are considered for compression
+  static final int BITMAP_MIN_ROWS = 64;
+
+  private final Map<String, int[]> postings; // value -> ascending row indices
+  private final Map<String, RowBitmap> bitmaps; // value -> rows, for long posting lists
+  private final boolean caseSensitive; // whether keys keep their original case
+
+  /**
+   * Builds an index over the specified column.
+   *
+   * @param column - the column to index.
+   * @param caseSensitive - whether lookups distinguish case.
+   */
+  public ColumnIndex(CSVColumn column, boolean caseSensitive) {
+    this.caseSensitive = caseSensitive;
+    // first pass: count the rows holding each value so every posting list is allocated once
+    Map<String, int[]> counts = new HashMap<>();
+    for (int row = 0; row < column.size(); row++) {
+      String cell = column.get(row);
+      if (cell != null) {
+        counts.computeIfAbsent(key(cell), k -> new int[1])[0]++;
+      }
+    }
+    this.postings = new HashMap<>(counts.size() * 4 / 3 + 1);
+    for (Map.Entry<String, int[]> entry : counts.entrySet()) {
+      postings.put(entry.getKey(), new int[entry.getValue()[0]]);
+      entry.getValue()[0] = 0;
+    }
+    // second pass: fill the posting lists in row order
+    for (int row = 0; row < column.size(); row++) {
+      String cell = column.get(row);
+      if (cell != null) {
+        String key = key(cell);
+        postings.get(key)[counts.get(key)[0]++] = row;
+      }
+    }
+    // third pass: compress the posting lists a bitmap holds in less memory
+    this.bitmaps = new HashMap<>();
+    for (Map.Entry<String, int[]> entry : postings.entrySet()) {
+      int[] rows = entry.getValue();
+      if (rows.length >= BITMAP_MIN_ROWS) {
+        RowBitmap bitmap = RowBitmap.of(rows);
+        if (bitmap.bytes() < 16 + 4L * rows.length) {
+          bitmaps.put(entry.getKey(), bitmap);
+        }
+      }
+    }
+    postings.keySet().removeAll(bitmaps.keySet());
+  }
+
+  /**
+   * Returns the rows whose cell equals the specified value.
+   * A posting list held as a bitmap is copied into a new array on every call, so callers that
+   * only need a count, a set operation or the first match should use count(), bitmap() or
+   * firstRow(); other arrays may be shared and must not be modified.
+   *
+   * @param value - the value to look up.
+   * @return - the matching row indices in ascending order.
+   */
+  public int[] rows(String value) {
+    RowBitmap bitmap = bitmaps.get(key(value));
+    return bitmap != null ? bitmap.toArray() : postings.getOrDefault(key(value), NO_ROWS);
+  }
+
+  /**
+   * Returns the first row whose cell equals the specified value, at or after a starting row and
+   * not rejected by a filter, without copying the posting list.
+   *
+   * @param value - the value to look up.
+   * @param from - the first row that may match.
+   * @param skip - rejects rows that would otherwise match.
+   * @return - the row index, or -1 if no row matches.
+   */
+  public int firstRow(String value, int from, IntPredicate skip) {
+    String key = key(value);
+    RowBitmap bitmap = bitmaps.get(key);
+    if (bitmap != null) {
+      int row = bitmap.nextRow(from);
+      while (row >= 0 && skip.test(row)) {
+        row = bitmap.nextRow(row + 1);
+      }
+      return row;
+    }
+    for (int row : postings.getOrDefault(key, NO_ROWS)) {
+      if (row >= from && !skip.test(row)) {
+        return row;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Returns the rows whose cell equals the specified value, as a bitmap.
+   * The returned bitmap may be shared and must not be modified.
+   *
+   * @param value - the value to look up.
+   * @return - the matching row indices.
+   */
+  public RowBitmap bitmap(String value) {
+    RowBitmap bitmap = bitmaps.get(key(value));
+    return bitmap != null ? bitmap : RowBitmap.of(postings.getOrDefault(key(value), NO_ROWS));
+  }
+
+  /**
+   * Returns the number of rows whose cell equals the specified value.
+   *
+   * @param value - the value to look up.
+   * @return - the number of matching rows.
+   */
+  public int count(String value) {
+    RowBitmap bitmap = bitmaps.get(key(value));
+    return bitmap != null ? bitmap.cardinality() : postings.getOrDefault(key(value), NO_ROWS).length;
+  }
+
+  /**
+   * Returns the number of distinct keys in the index.
+   *
+   * @return - the number of distinct keys.
+   */
+  public int size() {
+    return postings.size() + bitmaps.size();
+  }
+
+  /**
+   * Returns the index key for a cell or query value.
+   *
+   * @param value - the cell or query value.
+   * @return - the value itself, or its lowercase form for a case-insensitive index.
+   */
+  private String key(String value) {
+    return caseSensitive ? value : value.toLowerCase();
+  }
+}
@@ -0,0 +1,20 @@
+package edu.brown.cs.student.main.DataSource;
+
+/**
+ * Quick Summary:
+ * Names the ways a CSV column can be stored.
+ * STRING and CATEGORICAL columns hold text; the other types hold primitive values that are
+ * formatted back into the original cell text on access.
+ */
+
+/**
+ * Names the ways a CSV column can be stored.
+ */
+public enum ColumnType {
+  STRING, // one String per cell
+  CATEGORICAL, // a dictionary of distinct values plus one code per cell
+  INT, // whole numbers that fit an int
+  LONG, // whole numbers that need a long
+  DECIMAL, // numbers with a fixed number of fraction digits, stored scaled to whole numbers
+  DATE // dates, stored as days since the epoch
+}
@@ -0,0 +1,211 @@
+package edu.brown.cs.student.main.DataSource;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.format.ResolverStyle;
+import java.util.List;
+import java.util.function.IntPredicate;
+
+/**
+ * Quick Summary:
+ * A typed CSV column of dates, stored as days since 1970-01-01 in an int[].
+ * The date pattern is inferred once per column from a few common layouts; a cell is only stored
+ * as a date if the pattern formats it back to the same text, e.g. "3/7/2021" but not "03/7/2021".
+ */
+
+/**
+ * A typed CSV column of dates, stored as days since the epoch.
+ */
+public class DateColumn extends TypedColumn {
+  // layouts a date column may be written in, tried in order; all numeric, so text has no case
+  private static final List<String> PATTERNS =
+      List.of("uuuu-MM-dd", "M/d/uuuu", "MM/dd/uuuu", "uuuu/MM/dd");
+
+  private final String pattern; // the layout the dates are written in, one of PATTERNS
+  private final DateTimeFormatter formatter; // how dates are written in the cells
+  private final int[] days; // days since the epoch, one per row; ignored at exception rows
+
+  /**
+   * Constructs a DateColumn.
+   *
+   * @param pattern - the layout the dates are written in.
+   * @param formatter - how dates are written in the cells.
+   * @param days - days since the epoch, one per row.
+   * @param exceptions - the cells that are kept verbatim.
+   */
+  private DateColumn(
+      String pattern, DateTimeFormatter formatter, int[] days, Exceptions exceptions) {
+    super(days.length, exceptions);
+    this.pattern = pattern;
+    this.formatter = formatter;
+    this.days = days;
+  }
+
+  /**
+   * Constructs a DateColumn sharing another column's dates but with other verbatim cells.
+   *
+   * @param values - the column whose dates are shared.
+   * @param exceptionValues - the verbatim cells, parallel to the other column's exception rows.
+   */
+  private DateColumn(DateColumn values, String[] exceptionValues) {
+    super(values.size(), values.exceptionRows(), exceptionValues);
+    this.pattern = values.pattern;
+    this.formatter = values.formatter;
+    this.days = values.days;
+  }
+
+  /**
+   * Encodes the specified values as dates, if the sample shows they are dates.
+   *
+   * @param values - the cell values, one per row.
+   * @param sample - non-empty cells sampled from the values.
+   * @return - the column, or null if the values are not dates written in a single layout.
+   */
+  static DateColumn infer(String[] values, List<String> sample) {
+    for (String pattern : PATTERNS) {
+      DateTimeFormatter formatter =
+          DateTimeFormatter.ofPattern(pattern).withResolverStyle(ResolverStyle.STRICT);
+      int matched = 0;
+      for (String cell : sample) {
+        matched += parse(formatter, cell) != null ? 1 : 0;
+      }
+      if (matched < SAMPLE_MATCH * sample.size()) {
+        continue;
+      }
+      int[] days = new int[values.length];
+      Exceptions exceptions = new Exceptions(values.length);
+      for (int row = 0; row < values.length; row++) {
+        LocalDate date = parse(formatter, values[row]);
+        if (date != null) {
+          days[row] = (int) date.toEpochDay();
+        } else if (!exceptions.add(row, values[row])) {
+          return null;
+        }
+      }
+      return new DateColumn(pattern, formatter, days, exceptions);
+    }
+    return null;
+  }
+
+  /**
+   * Parses a cell as a date that formats back to the same text.
+   *
+   * @param formatter - the layout of the cell.
+   * @param cell - the cell.
+   * @return - the date, or null if the cell is not a date in that layout.
+   */
+  private static LocalDate parse(DateTimeFormatter formatter, String cell) {
+    if (cell == null) {
+      return null;
+    }
+    try {
+      LocalDate date = LocalDate.parse(cell, formatter);
+      return formatter.format(date).equals(cell) ? date : null;
+    } catch (DateTimeParseException e) {
+      return null;
+    }
+  }
+
+  @Override
+  public ColumnType type() {
+    return ColumnType.DATE;
+  }
+
+  /**
+   * Returns the date at the specified row as days since the epoch.
+   * Only meaningful where hasValue(row) is true.
+   *
+   * @param row - the row index.
+   * @return - the number of days since 1970-01-01.
+   */
+  public int epochDay(int row) {
+    return days[row];
+  }
+
+  /**
+   * Reads a date written in this column's layout or as yyyy-MM-dd, e.g. a search bound.
+   *
+   * @param text - the date.
+   * @return - the number of days since 1970-01-01.
+   * @throws NumberFormatException - if the text is a date in neither layout.
+   */
+  public long parseDay(String text) {
+    for (DateTimeFormatter layout : List.of(formatter, DateTimeFormatter.ISO_LOCAL_DATE)) {
+      try {
+        return LocalDate.parse(text.strip(), layout).toEpochDay();
+      } catch (DateTimeParseException e) {
+        // try the next layout
+      }
+    }
+    throw new NumberFormatException("Value '" + text + "' is not a date");
+  }
+
+  @Override
+  public double doubleValue(int row) {
+    return days[row];
+  }
+
+  @Override
+  protected void format(int row, StringBuilder text) {
+    LocalDate date = LocalDate.ofEpochDay(days[row]);
+    if (date.getYear() < 0 || date.getYear() > 9999) {
+      // the pattern's four year digits would not fit, so let the formatter sign and widen them
+      formatter.formatTo(date, text);
+      return;
+    }
+    // the layouts are all numeric fields, so they are written straight into the buffer instead of
+    // through the formatter, which would allocate on every cell
+    for (int i = 0; i < pattern.length(); ) {
+      char letter = pattern.charAt(i);
+      int width = 1;
+      while (i + width < pattern.length() && pattern.charAt(i + width) == letter) {
+        width++;
+      }
+      switch (letter) {
+        case 'u' -> appendPadded(text, date.getYear(), width);
+        case 'M' -> appendPadded(text, date.getMonthValue(), width);
+        case 'd' -> appendPadded(text, date.getDayOfMonth(), width);
+        default -> text.append(letter);
+      }
+      i += width;
+    }
+  }
+
+  /**
+   * Appends a non-negative number padded with leading zeros to at least the specified width.
+   *
+   * @param text - the buffer to append to.
+   * @param value - the number.
+   * @param width - the least number of digits.
+   */
+  private static void appendPadded(StringBuilder text, int value, int width) {
+    for (int limit = 10; width > 1; width--, limit *= 10) {
+      if (value < limit) {
+        text.append('0');
+      }
+    }
+    text.append(value);
+  }
+
+  @Override
+  protected IntPredicate valueEquals(String text) {
+    // only text that formats back to itself parses, so other text cannot equal any formatted date
+    LocalDate date = parse(formatter, text);
+    if (date == null) {
+      return row -> false;
+    }
+    int day = (int) date.toEpochDay();
+    return row -> days[row] == day;
+  }
+
+  @Override
+  protected DateColumn withExceptions(String[] values) {
+    return new DateColumn(this, values);
+  }
+
+  @Override
+  protected long valueBytes() {
+    return 16 + 4L * days.length;
+  }
+}
@@ -0,0 +1,151 @@
+package edu.brown.cs.student.main.DataSource;
+
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+/**
+ * Quick Summary:
+ * A CSV column stored as a dictionary of distinct values plus one small code per row.
+ * Each distinct value is held once; rows hold a byte, char or int code depending on how many
+ * distinct values there are. Code 0 marks a missing cell, so dictionary entries start at 1.
+ */
+
+/**
+ * A CSV column stored as a dictionary of distinct values plus one small code per row.
+ */
+public class DictionaryColumn implements CSVColumn {
+  private final String[] dictionary; // distinct values, indexed by code; entry 0 is null
+  private final int size; // number of rows
+  private final byte[] byteCodes; // per-row codes when the dictionary has fewer than 256 entries
+  private final char[] charCodes; // per-row codes when the dictionary has fewer than 65536 entries
+  private final int[] intCodes; // per-row codes otherwise
+
+  /**
+   * Constructs a DictionaryColumn over the specified values.
+   *
+   * @param values - the cell values, one per row; null marks a missing cell.
+   * @param codes - maps each distinct non-null value to a distinct index in [0, codes.size()).
+   */
+  public DictionaryColumn(String[] values, Map<String, Integer> codes) {
+    this.size = values.length;
+    this.dictionary = new String[codes.size() + 1];
+    for (Map.Entry<String, Integer> entry : codes.entrySet()) {
+      this.dictionary[entry.getValue() + 1] = entry.getKey();
+    }
+    int entries = this.dictionary.length;
+    this.byteCodes = entries <= 1 << 8 ? new byte[size] : null;
+    this.charCodes = byteCodes == null && entries <= 1 << 16 ? new char[size] : null;
+    this.intCodes = byteCodes == null && charCodes == null ? new int[size] : null;
+    for (int row = 0; row < size; row++) {
+      int code = values[row] == null ? 0 : codes.get(values[row]) + 1;
+      if (byteCodes != null) {
+        byteCodes[row] = (byte) code;
+      } else if (charCodes != null) {
+        charCodes[row] = (char) code;
+      } else {
+        intCodes[row] = code;
+      }
+    }
+  }
+
+  /**
+   * Constructs a DictionaryColumn that shares another column's codes but has its own dictionary.
+   *
+   * @param codes - the column whose per-row codes are shared.
+   * @param dictionary - the dictionary, indexed by code; entry 0 is null.
+   */
+  private DictionaryColumn(DictionaryColumn codes, String[] dictionary) {
+    this.dictionary = dictionary;
+    this.size = codes.size;
+    this.byteCodes = codes.byteCodes;
+    this.charCodes = codes.charCodes;
+    this.intCodes = codes.intCodes;
+  }
+
+  /**
+   * Returns a column with every value transformed, sharing this column's per-row codes so only
+   * the dictionary is copied.
+   *
+   * @param fn - the transformation applied to each distinct value.
+   * @return - the transformed column.
+   */
+  public DictionaryColumn mapValues(UnaryOperator<String> fn) {
+    String[] mapped = new String[dictionary.length];
+    for (int code = 1; code < dictionary.length; code++) {
+      mapped[code] = fn.apply(dictionary[code]);
+    }
+    return new DictionaryColumn(this, mapped);
+  }
+
+  /**
+   * Returns the number of rows in the column.
+   *
+   * @return - the number of rows.
+   */
+  public int size() {
+    return this.size;
+  }
+
+  /**
+   * Returns the cell at the specified row.
+   *
+   * @param row - the row index.
+   * @return - the cell value, or null if the row has no cell in this column.
+   */
+  public String get(int row) {
+    return this.dictionary[code(row)];
+  }
+
+  @Override
+  public ColumnType type() {
+    return ColumnType.CATEGORICAL;
+  }
+
+  /**
+   * Returns the dictionary code of the cell at the specified row.
+   *
+   * @param row - the row index.
+   * @return - the code, where 0 means the row has no cell in this column.
+   */
+  public int code(int row) {
+    if (byteCodes != null) {
+      return byteCodes[row] & 0xFF;
+    } else if (charCodes != null) {
+      return charCodes[row];
+    }
+    return intCodes[row];
+  }
+
+  /**
+   * Returns the number of dictionary entries, including the null entry at code 0.
+   *
+   * @return - the number of dictionary entries.
+   */
+  public int dictionarySize() {
+    return this.dictionary.length;
+  }
+
+  /**
+   * Returns the value with the specified dictionary code.
+   *
+   * @param code - the dictionary code.
+   * @return - the value, or null for code 0.
+   */
+  public String entry(int code) {
+    return this.dictionary[code];
+  }
+
+  /**
+   * Estimates the heap used by the column: the dictionary plus one code per row.
+   *
+   * @return - the estimated size in bytes.
+   */
+  public long bytes() {
+    long bytes = 16 + 4L * dictionary.length;
+    for (String value : dictionary) {
+      bytes += CSVColumn.bytes(value);
+    }
+    int width = byteCodes != null ? 1 : charCodes != null ? 2 : 4;
+    return bytes + 16 + (long) width * size;
+  }
+}
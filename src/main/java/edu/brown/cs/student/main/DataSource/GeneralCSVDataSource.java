@@ -1,24 +1,71 @@
 package edu.brown.cs.student.main.DataSource;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
 
 /**
  * Quick Summary:
  * Represents a general CSV data source.
  * Provides methods to retrieve the current CSV matrix and set a new CSV matrix.
+ * Holds any number of named datasets alongside the current (unnamed) one, within a total memory
+ * budget; when loading a dataset exceeds the budget, the least recently used datasets are evicted.
+ * The loaded datasets are published as an immutable snapshot behind an atomic reference: readers
+ * never lock, and loads swap in a new snapshot with compare-and-set. A CSVData is itself never
+ * modified once built, so a request keeps a consistent view of the dataset it started with even
+ * if the dataset is replaced while the request is running.
+ * Removal listeners are told of every replaced or evicted dataset once the new snapshot is live.
  */
 
 /**
  * Represents a general CSV data source.
  */
 public class GeneralCSVDataSource implements CSVDataSource {
-    private CSVData csvData; // current CSV data
+    // registry key of the current, unnamed dataset
+    private static final String CURRENT = "";
+
+    // the loaded datasets; replaced, never modified
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>(new Snapshot(Map.of(), 0));
+    private final AtomicLong clock = new AtomicLong(); // orders dataset uses for LRU eviction
+    private final long trigramBudget; // heap, in bytes, each dataset may spend on trigram indexes
+    private final long memoryBudget; // heap, in bytes, all loaded datasets may use together
+    // called with each dataset that is replaced or evicted
+    private final List<BiConsumer<String, CSVData>> removalListeners = new CopyOnWriteArrayList<>();
 
     /**
-     * Constructs a GeneralCSVDataSource with null CSV data.
+     * Constructs a GeneralCSVDataSource with null CSV data and no trigram indexing.
      */
     public GeneralCSVDataSource() {
-        this.csvData = null;
+        this(0);
+    }
+
+    /**
+     * Constructs a GeneralCSVDataSource with null CSV data and no memory budget.
+     *
+     * @param trigramBudget - the heap, in bytes, each loaded dataset may spend on trigram indexes
+     *                      for substring search; 0 disables them.
+     */
+    public GeneralCSVDataSource(long trigramBudget) {
+        this(trigramBudget, Long.MAX_VALUE);
+    }
+
+    /**
+     * Constructs a GeneralCSVDataSource with null CSV data.
+     *
+     * @param trigramBudget - the heap, in bytes, each loaded dataset may spend on trigram indexes
+     *                      for substring search; 0 disables them.
+     * @param memoryBudget - the heap, in bytes, all loaded datasets may use together, not counting
+     *                     their search indexes.
+     */
+    public GeneralCSVDataSource(long trigramBudget, long memoryBudget) {
+        this.trigramBudget = trigramBudget;
+        this.memoryBudget = memoryBudget;
     }
 
     /**
@@ -27,7 +74,7 @@ public class GeneralCSVDataSource implements CSVDataSource {
      * @return - the current CSV matrix.
      */
     public CSVData getCurrentMatrix() {
-        return this.csvData;
+        return getMatrix(null);
     }
 
     /**
@@ -36,6 +83,143 @@ public class GeneralCSVDataSource implements CSVDataSource {
      * @param mtrx - the matrix to set as the current CSV matrix.
      */
     public void setCurrentMatrix(List<List<String>> mtrx)  {
-        this.csvData = new CSVData(mtrx);
+        setMatrix(null, mtrx);
     }
+
+    /**
+     * Retrieves the dataset loaded under the specified name, marking it as recently used.
+     * Never blocks.
+     *
+     * @param name - the name of the dataset, or null for the current matrix.
+     * @return - the dataset, or null if none is loaded under the name.
+     */
+    @Override
+    public CSVData getMatrix(String name) {
+        Dataset dataset = this.snapshot.get().datasets().get(name == null ? CURRENT : name);
+        if (dataset == null) {
+            return null;
+        }
+        dataset.lastUsed().set(this.clock.incrementAndGet());
+        return dataset.data();
+    }
+
+    /**
+     * Registers a callback run after a loaded dataset is replaced or evicted.
+     *
+     * @param listener - called with the dataset's name, empty for the current matrix, and the
+     *                 dataset that was removed.
+     */
+    @Override
+    public void addRemovalListener(BiConsumer<String, CSVData> listener) {
+        this.removalListeners.add(listener);
+    }
+
+    /**
+     * Loads the specified matrix under the specified name, replacing any dataset of that name,
+     * then evicts least recently used datasets until the loaded datasets fit the memory budget.
+     * The dataset just loaded is never evicted, even if it exceeds the budget on its own.
+     * Removal listeners are then called with the replaced and evicted datasets.
+     *
+     * @param name - the name of the dataset, or null for the current matrix.
+     * @param mtrx - the matrix to load.
+     */
+    @Override
+    public void setMatrix(String name, List<List<String>> mtrx) {
+        setMatrix(name, mtrx, false);
+    }
+
+    /**
+     * Loads the specified matrix under the specified name, as by setMatrix(name, mtrx), storing
+     * numeric and date columns as primitive values if requested.
+     *
+     * @param name - the name of the dataset, or null for the current matrix.
+     * @param mtrx - the matrix to load.
+     * @param inferTypes - whether to infer column types from a sample of each column.
+     */
+    @Override
+    public void setMatrix(String name, List<List<String>> mtrx, boolean inferTypes) {
+        String key = name == null ? CURRENT : name;
+        // the dataset is fully built before it is published
+        Dataset loaded = new Dataset(new CSVData(mtrx, trigramBudget, inferTypes),
+                new AtomicLong(this.clock.incrementAndGet()));
+        Snapshot current;
+        Snapshot next;
+        Dataset replaced;
+        List<String> evicted;
+        Map<String, CSVData> removed;
+        do {
+            current = this.snapshot.get();
+            Map<String, Dataset> datasets = new HashMap<>(current.datasets());
+            replaced = datasets.put(key, loaded);
+            long usedBytes = current.usedBytes() + loaded.data().bytes()
+                    - (replaced == null ? 0 : replaced.data().bytes());
+            evicted = new ArrayList<>();
+            removed = new HashMap<>();
+            if (usedBytes > this.memoryBudget) {
+                List<String> byAge = new ArrayList<>(datasets.keySet());
+                byAge.sort(Comparator.comparingLong(k -> datasets.get(k).lastUsed().get()));
+                for (String candidate : byAge) {
+                    if (usedBytes <= this.memoryBudget) {
+                        break;
+                    }
+                    if (!candidate.equals(key)) {
+                        CSVData data = datasets.remove(candidate).data();
+                        usedBytes -= data.bytes();
+                        evicted.add(candidate);
+                        removed.put(candidate, data);
+                    }
+                }
+            }
+            next = new Snapshot(Map.copyOf(datasets), usedBytes);
+        } while (!this.snapshot.compareAndSet(current, next));
+        for (String candidate : evicted) {
+            System.err.println("Evicted dataset '" + candidate + "' to stay within memory budget");
+        }
+        if (replaced != null) {
+            removed.put(key, replaced.data());
+        }
+        for (Map.Entry<String, CSVData> entry : removed.entrySet()) {
+            for (BiConsumer<String, CSVData> listener : this.removalListeners) {
+                listener.accept(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Returns the names of the loaded datasets, from least to most recently used.
+     * The current matrix is listed under the empty name.
+     *
+     * @return - the dataset names.
+     */
+    public List<String> names() {
+        Map<String, Dataset> datasets = this.snapshot.get().datasets();
+        List<String> names = new ArrayList<>(datasets.keySet());
+        names.sort(Comparator.comparingLong(k -> datasets.get(k).lastUsed().get()));
+        return names;
+    }
+
+    /**
+     * Returns the estimated heap used by the loaded datasets.
+     *
+     * @return - the estimated size in bytes.
+     */
+    public long usedBytes() {
+        return this.snapshot.get().usedBytes();
+    }
+
+    /**
+     * A loaded dataset and when it was last used.
+     *
+     * @param data - the dataset.
+     * @param lastUsed - the clock reading of its most recent use.
+     */
+    private record Dataset(CSVData data, AtomicLong lastUsed) {}
+
+    /**
+     * The datasets loaded at one point in time.
+     *
+     * @param datasets - the datasets by name; unmodifiable.
+     * @param usedBytes - the estimated heap they use together.
+     */
+    private record Snapshot(Map<String, Dataset> datasets, long usedBytes) {}
 }
@@ -0,0 +1,292 @@
+package edu.brown.cs.student.main.DataSource;
+
+import java.util.List;
+import java.util.function.IntPredicate;
+
+/**
+ * Quick Summary:
+ * A typed CSV column of numbers, stored as whole numbers in an int[] or, if any does not fit, a long[].
+ * Decimals are scaled by a fixed power of ten, so "74,489.00" is stored as 7448900 and formatted
+ * back exactly; a double would lose the original text's trailing zeros and grouping.
+ * The format (quotes, thousands separators, fraction digits) is inferred once per column.
+ */
+
+/**
+ * A typed CSV column of numbers, stored as scaled whole numbers.
+ */
+public class NumberColumn extends TypedColumn {
+  // most fraction digits a decimal column may have
+  static final int MAX_SCALE = 9;
+  // powers of ten up to 10^18, the largest a long holds
+  private static final long[] POWERS = {
+      1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L,
+      1_000_000_000L, 10_000_000_000L, 100_000_000_000L, 1_000_000_000_000L,
+      10_000_000_000_000L, 100_000_000_000_000L, 1_000_000_000_000_000L,
+      10_000_000_000_000_000L, 100_000_000_000_000_000L, 1_000_000_000_000_000_000L};
+
+  private final Format format; // how values are written in the cells
+  private final int[] ints; // scaled values when every one fits an int, otherwise null
+  private final long[] longs; // scaled values otherwise
+
+  /**
+   * Constructs a NumberColumn.
+   *
+   * @param format - how values are written in the cells.
+   * @param values - the scaled values, one per row; ignored at exception rows.
+   * @param exceptions - the cells that are kept verbatim.
+   */
+  private NumberColumn(Format format, long[] values, Exceptions exceptions) {
+    super(values.length, exceptions);
+    this.format = format;
+    boolean fitsInt = true;
+    for (long value : values) {
+      fitsInt &= value == (int) value;
+    }
+    this.ints = fitsInt ? new int[values.length] : null;
+    this.longs = fitsInt ? null : values;
+    if (fitsInt) {
+      for (int row = 0; row < values.length; row++) {
+        ints[row] = (int) values[row];
+      }
+    }
+  }
+
+  /**
+   * Constructs a NumberColumn sharing another column's values but with other verbatim cells.
+   *
+   * @param values - the column whose values are shared.
+   * @param exceptionValues - the verbatim cells, parallel to the other column's exception rows.
+   */
+  private NumberColumn(NumberColumn values, String[] exceptionValues) {
+    super(values.size(), values.exceptionRows(), exceptionValues);
+    this.format = values.format;
+    this.ints = values.ints;
+    this.longs = values.longs;
+  }
+
+  /**
+   * Encodes the specified values as numbers, if the sample shows they are numbers.
+   *
+   * @param values - the cell values, one per row.
+   * @param sample - non-empty cells sampled from the values.
+   * @return - the column, or null if the values are not numbers written in a single format.
+   */
+  static NumberColumn infer(String[] values, List<String> sample) {
+    Format format = Format.infer(sample);
+    if (format == null) {
+      return null;
+    }
+    long[] scaled = new long[values.length];
+    Exceptions exceptions = new Exceptions(values.length);
+    for (int row = 0; row < values.length; row++) {
+      try {
+        scaled[row] = format.parse(values[row]);
+      } catch (NumberFormatException e) {
+        if (!exceptions.add(row, values[row])) {
+          return null;
+        }
+      }
+    }
+    return new NumberColumn(format, scaled, exceptions);
+  }
+
+  @Override
+  public ColumnType type() {
+    return format.scale() > 0 ? ColumnType.DECIMAL : ints != null ? ColumnType.INT : ColumnType.LONG;
+  }
+
+  /**
+   * Returns the value at the specified row as a whole number, scaled by 10^scale().
+   * Only meaningful where hasValue(row) is true.
+   *
+   * @param row - the row index.
+   * @return - the scaled value.
+   */
+  public long scaledValue(int row) {
+    return ints != null ? ints[row] : longs[row];
+  }
+
+  /**
+   * Returns the number of fraction digits the values are scaled by.
+   *
+   * @return - the number of fraction digits; 0 for whole numbers.
+   */
+  public int scale() {
+    return format.scale();
+  }
+
+  @Override
+  public double doubleValue(int row) {
+    return (double) scaledValue(row) / POWERS[format.scale()];
+  }
+
+  @Override
+  protected void format(int row, StringBuilder text) {
+    format.format(scaledValue(row), text);
+  }
+
+  @Override
+  protected IntPredicate valueEquals(String text) {
+    long value;
+    try {
+      // only canonical text parses, so text that does not cannot equal any formatted value
+      value = format.parse(text);
+    } catch (NumberFormatException e) {
+      return row -> false;
+    }
+    return row -> scaledValue(row) == value;
+  }
+
+  @Override
+  protected NumberColumn withExceptions(String[] values) {
+    return new NumberColumn(this, values);
+  }
+
+  @Override
+  protected long valueBytes() {
+    return 16 + (ints != null ? 4L * ints.length : 8L * longs.length);
+  }
+
+  /**
+   * How the numbers of a column are written.
+   *
+   * @param quoted - whether each number is wrapped in double quotes.
+   * @param grouped - whether thousands are separated by commas.
+   * @param scale - the number of digits after the decimal point.
+   */
+  record Format(boolean quoted, boolean grouped, int scale) {
+
+    /**
+     * Infers the format most of the sampled cells are written in.
+     *
+     * @param sample - the sampled cells.
+     * @return - the format, or null if too few of the cells are numbers in that format.
+     */
+    static Format infer(List<String> sample) {
+      int quoted = 0;
+      boolean grouped = false;
+      int[] scales = new int[MAX_SCALE + 1];
+      for (String cell : sample) {
+        boolean isQuoted = cell.length() > 1 && cell.startsWith("\"") && cell.endsWith("\"");
+        String text = isQuoted ? cell.substring(1, cell.length() - 1) : cell;
+        int point = text.indexOf('.');
+        int scale = point < 0 ? 0 : text.length() - point - 1;
+        if (scale <= MAX_SCALE) {
+          quoted += isQuoted ? 1 : 0;
+          grouped |= text.indexOf(',') >= 0;
+          scales[scale]++;
+        }
+      }
+      int scale = 0;
+      for (int i = 1; i < scales.length; i++) {
+        scale = scales[i] > scales[scale] ? i : scale;
+      }
+      Format format = new Format(2 * quoted > sample.size(), grouped, scale);
+      int matched = 0;
+      for (String cell : sample) {
+        try {
+          format.parse(cell);
+          matched++;
+        } catch (NumberFormatException e) {
+          // counted as a miss
+        }
+      }
+      return matched >= SAMPLE_MATCH * sample.size() ? format : null;
+    }
+
+    /**
+     * Parses a cell written in this format.
+     *
+     * @param cell - the cell.
+     * @return - the value scaled by 10^scale.
+     * @throws NumberFormatException - if the cell is not a number that formats back to itself.
+     */
+    long parse(String cell) {
+      if (cell == null) {
+        throw new NumberFormatException("Missing cell");
+      }
+      int start = 0;
+      int end = cell.length();
+      if (quoted) {
+        if (end < 2 || cell.charAt(0) != '"' || cell.charAt(end - 1) != '"') {
+          throw new NumberFormatException("Unquoted cell: " + cell);
+        }
+        start++;
+        end--;
+      }
+      boolean negative = start < end && cell.charAt(start) == '-';
+      long value = 0;
+      int digits = 0;
+      int fraction = -1; // digits seen after the decimal point, or -1 before it
+      try {
+        for (int i = negative ? start + 1 : start; i < end; i++) {
+          char c = cell.charAt(i);
+          if (c >= '0' && c <= '9') {
+            value = Math.addExact(Math.multiplyExact(value, 10), c - '0');
+            digits++;
+            fraction += fraction >= 0 ? 1 : 0;
+          } else if (c == '.' && fraction < 0 && scale > 0) {
+            fraction = 0;
+          } else if (c != ',' || !grouped || fraction >= 0) {
+            throw new NumberFormatException("Not a number: " + cell);
+          }
+        }
+      } catch (ArithmeticException e) {
+        throw new NumberFormatException("Number too large: " + cell);
+      }
+      if (digits == 0 || fraction != (scale > 0 ? scale : -1)) {
+        throw new NumberFormatException("Not a number: " + cell);
+      }
+      value = negative ? -value : value;
+      // leading zeros, misplaced commas and "-0" do not survive formatting, so keep them verbatim
+      if (!format(value).equals(cell)) {
+        throw new NumberFormatException("Not in canonical form: " + cell);
+      }
+      return value;
+    }
+
+    /**
+     * Writes a value in this format.
+     *
+     * @param value - the value scaled by 10^scale.
+     * @return - the cell text.
+     */
+    String format(long value) {
+      StringBuilder text = new StringBuilder(32);
+      format(value, text);
+      return text.toString();
+    }
+
+    /**
+     * Writes a value in this format, digit by digit, without building intermediate Strings.
+     *
+     * @param value - the value scaled by 10^scale; never Long.MIN_VALUE, which parse() cannot return.
+     * @param text - the buffer the cell text is appended to.
+     */
+    void format(long value, StringBuilder text) {
+      long magnitude = Math.abs(value);
+      int digits = scale + 1; // at least one digit before the decimal point
+      while (digits < POWERS.length && magnitude >= POWERS[digits]) {
+        digits++;
+      }
+      int whole = digits - scale;
+      if (quoted) {
+        text.append('"');
+      }
+      if (value < 0) {
+        text.append('-');
+      }
+      for (int i = 0; i < digits; i++) {
+        if (i == whole) {
+          text.append('.');
+        } else if (grouped && i > 0 && i < whole && (whole - i) % 3 == 0) {
+          text.append(',');
+        }
+        text.append((char) ('0' + magnitude / POWERS[digits - 1 - i] % 10));
+      }
+      if (quoted) {
+        text.append('"');
+      }
+    }
+  }
+}
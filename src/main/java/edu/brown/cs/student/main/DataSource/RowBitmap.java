@@ -0,0 +1,752 @@
+package edu.brown.cs.student.main.DataSource;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * Quick Summary:
+ * A compressed set of row indices, laid out like a Roaring bitmap.
+ * Rows are split into chunks of 65536 by their high 16 bits; each non-empty chunk is a container
+ * holding the low 16 bits, either as a sorted char[] while the chunk has at most 4096 rows
+ * (2 bytes per row) or as a fixed 8 KB bitmap once it has more (under 2 bytes per row).
+ * Sparse and dense results therefore both stay small, membership is a binary search plus a bit
+ * test, and set operations work a chunk at a time: intersecting a small set with a large one only
+ * touches the chunks they share.
+ * Rows should be added in ascending order, which appends; set operations return new bitmaps and
+ * never modify their operands, so bitmaps held by indexes can be shared between searches.
+ */
+
+/**
+ * A compressed set of row indices, laid out like a Roaring bitmap.
+ */
+public final class RowBitmap {
+  // most rows a chunk holds as a sorted array before switching to a bitmap
+  static final int ARRAY_MAX = 4096;
+  // 64-bit words in a chunk's bitmap
+  private static final int WORDS = 1 << 10;
+
+  private char[] keys; // high 16 bits of each chunk, ascending
+  private Container[] containers; // the low 16 bits of each chunk's rows, parallel to keys
+  private int size; // number of chunks in use
+
+  /**
+   * Constructs an empty RowBitmap.
+   */
+  public RowBitmap() {
+    this(new char[4], new Container[4], 0);
+  }
+
+  /**
+   * Constructs a RowBitmap over the specified chunks.
+   *
+   * @param keys - the high 16 bits of each chunk, ascending.
+   * @param containers - the non-empty containers of each chunk, parallel to keys.
+   * @param size - the number of chunks in use.
+   */
+  private RowBitmap(char[] keys, Container[] containers, int size) {
+    this.keys = keys;
+    this.containers = containers;
+    this.size = size;
+  }
+
+  /**
+   * Returns a bitmap holding the specified rows.
+   *
+   * @param rows - the rows, in any order; duplicates are ignored.
+   * @return - the bitmap.
+   */
+  public static RowBitmap of(int... rows) {
+    int[] sorted = rows.clone();
+    Arrays.sort(sorted);
+    RowBitmap bitmap = new RowBitmap();
+    for (int row : sorted) {
+      bitmap.add(row);
+    }
+    return bitmap;
+  }
+
+  /**
+   * Returns a bitmap holding every row in [from, to).
+   *
+   * @param from - the first row.
+   * @param to - the row just past the last.
+   * @return - the bitmap.
+   */
+  public static RowBitmap range(int from, int to) {
+    if (from >= to) {
+      return new RowBitmap();
+    }
+    long[] words = new long[(to + 63) >>> 6];
+    Arrays.fill(words, from >>> 6, words.length, -1L);
+    words[from >>> 6] &= -1L << from;
+    words[words.length - 1] &= -1L >>> -to;
+    return fromWords(words);
+  }
+
+  /**
+   * Returns a bitmap holding the set bits of the specified words, as in BitSet.valueOf(words):
+   * row r is present if bit (r % 64) of words[r / 64] is set.
+   *
+   * @param words - the bits.
+   * @return - the bitmap.
+   */
+  public static RowBitmap fromWords(long[] words) {
+    int chunks = (words.length + WORDS - 1) / WORDS;
+    char[] keys = new char[Math.max(chunks, 1)];
+    Container[] containers = new Container[keys.length];
+    int size = 0;
+    for (int chunk = 0; chunk < chunks; chunk++) {
+      long[] block = Arrays.copyOfRange(words, chunk * WORDS, (chunk + 1) * WORDS);
+      Container container = new BitmapContainer(block, BitmapContainer.count(block)).normalize();
+      if (container.cardinality() > 0) {
+        keys[size] = (char) chunk;
+        containers[size++] = container;
+      }
+    }
+    return new RowBitmap(keys, containers, size);
+  }
+
+  /**
+   * Adds a row. Adding rows in ascending order appends, in amortized constant time.
+   *
+   * @param row - the row index; must not be negative.
+   */
+  public void add(int row) {
+    char high = (char) (row >>> 16);
+    char low = (char) row;
+    int chunk = size > 0 && keys[size - 1] == high ? size - 1 : find(high);
+    if (chunk >= 0) {
+      containers[chunk] = containers[chunk].add(low);
+      return;
+    }
+    chunk = -chunk - 1;
+    if (size == keys.length) {
+      keys = Arrays.copyOf(keys, size * 2);
+      containers = Arrays.copyOf(containers, size * 2);
+    }
+    System.arraycopy(keys, chunk, keys, chunk + 1, size - chunk);
+    System.arraycopy(containers, chunk, containers, chunk + 1, size - chunk);
+    keys[chunk] = high;
+    containers[chunk] = new ArrayContainer(new char[] {low}, 1);
+    size++;
+  }
+
+  /**
+   * Checks whether a row is present.
+   *
+   * @param row - the row index.
+   * @return - true if the row is in the set.
+   */
+  public boolean contains(int row) {
+    int chunk = find((char) (row >>> 16));
+    return row >= 0 && chunk >= 0 && containers[chunk].contains((char) row);
+  }
+
+  /**
+   * Returns the first row at or after the specified row, as BitSet.nextSetBit does.
+   *
+   * @param from - the row to start from.
+   * @return - the first row present that is at least from, or -1 if there is none.
+   */
+  public int nextRow(int from) {
+    int start = Math.max(from, 0);
+    int chunk = find((char) (start >>> 16));
+    char low = (char) start;
+    if (chunk < 0) {
+      chunk = -chunk - 1;
+      low = 0;
+    }
+    for (; chunk < size; chunk++, low = 0) {
+      int next = containers[chunk].next(low);
+      if (next >= 0) {
+        return keys[chunk] << 16 | next;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Returns the number of rows in the set.
+   *
+   * @return - the number of rows.
+   */
+  public int cardinality() {
+    int cardinality = 0;
+    for (int i = 0; i < size; i++) {
+      cardinality += containers[i].cardinality();
+    }
+    return cardinality;
+  }
+
+  /**
+   * Checks whether the set is empty.
+   *
+   * @return - true if no rows are present.
+   */
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * Returns the rows present in both this set and the other.
+   *
+   * @param other - the other set.
+   * @return - a new bitmap holding the intersection.
+   */
+  public RowBitmap and(RowBitmap other) {
+    RowBitmap result = new RowBitmap(new char[Math.max(1, Math.min(size, other.size))],
+        new Container[Math.max(1, Math.min(size, other.size))], 0);
+    for (int i = 0, j = 0; i < size && j < other.size; ) {
+      if (keys[i] < other.keys[j]) {
+        i++;
+      } else if (keys[i] > other.keys[j]) {
+        j++;
+      } else {
+        result.append(keys[i], containers[i++].and(other.containers[j++]));
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Returns the rows present in this set, the other, or both.
+   *
+   * @param other - the other set.
+   * @return - a new bitmap holding the union.
+   */
+  public RowBitmap or(RowBitmap other) {
+    RowBitmap result = new RowBitmap(new char[Math.max(1, size + other.size)],
+        new Container[Math.max(1, size + other.size)], 0);
+    int i = 0;
+    int j = 0;
+    while (i < size || j < other.size) {
+      if (j == other.size || (i < size && keys[i] < other.keys[j])) {
+        result.append(keys[i], containers[i++].copy());
+      } else if (i == size || keys[i] > other.keys[j]) {
+        result.append(other.keys[j], other.containers[j++].copy());
+      } else {
+        result.append(keys[i], containers[i++].or(other.containers[j++]));
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Returns the rows present in this set but not the other.
+   *
+   * @param other - the other set.
+   * @return - a new bitmap holding the difference.
+   */
+  public RowBitmap andNot(RowBitmap other) {
+    RowBitmap result = new RowBitmap(new char[Math.max(1, size)], new Container[Math.max(1, size)], 0);
+    int j = 0;
+    for (int i = 0; i < size; i++) {
+      while (j < other.size && other.keys[j] < keys[i]) {
+        j++;
+      }
+      boolean shared = j < other.size && other.keys[j] == keys[i];
+      result.append(keys[i], shared ? containers[i].andNot(other.containers[j]) : containers[i].copy());
+    }
+    return result;
+  }
+
+  /**
+   * Passes every row to the action, in ascending order.
+   *
+   * @param action - the action to run on each row.
+   */
+  public void forEach(IntConsumer action) {
+    for (int i = 0; i < size; i++) {
+      containers[i].forEach(keys[i] << 16, action);
+    }
+  }
+
+  /**
+   * Returns the rows in ascending order.
+   *
+   * @return - the rows.
+   */
+  public int[] toArray() {
+    int[] rows = new int[cardinality()];
+    int n = 0;
+    for (int i = 0; i < size; i++) {
+      n = containers[i].copyTo(keys[i] << 16, rows, n);
+    }
+    return rows;
+  }
+
+  /**
+   * Returns the rows in ascending order as a stream.
+   *
+   * @return - the rows.
+   */
+  public IntStream stream() {
+    return Arrays.stream(toArray());
+  }
+
+  /**
+   * Estimates the heap used by the bitmap.
+   *
+   * @return - the estimated size in bytes.
+   */
+  public long bytes() {
+    long bytes = 24 + 16 + 2L * keys.length + 16 + 4L * containers.length;
+    for (int i = 0; i < size; i++) {
+      bytes += containers[i].bytes();
+    }
+    return bytes;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (!(o instanceof RowBitmap other) || other.size != size) {
+      return false;
+    }
+    for (int i = 0; i < size; i++) {
+      if (keys[i] != other.keys[i] || !containers[i].sameRows(other.containers[i])) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public int hashCode() {
+    return Arrays.hashCode(toArray());
+  }
+
+  @Override
+  public String toString() {
+    return Arrays.toString(toArray()).replace('[', '{').replace(']', '}');
+  }
+
+  /**
+   * Appends a chunk built by a set operation, dropping it if it is empty.
+   *
+   * @param key - the high 16 bits of the chunk, above every chunk so far.
+   * @param container - the container of the chunk.
+   */
+  private void append(char key, Container container) {
+    if (container.cardinality() > 0) {
+      keys[size] = key;
+      containers[size++] = container;
+    }
+  }
+
+  /**
+   * Finds the chunk with the specified high bits.
+   *
+   * @param high - the high 16 bits.
+   * @return - the chunk's position, or (-(insertion point) - 1) if there is none.
+   */
+  private int find(char high) {
+    return Arrays.binarySearch(keys, 0, size, high);
+  }
+
+  /**
+   * The low 16 bits of the rows in one chunk.
+   */
+  private abstract static class Container {
+
+    /**
+     * Returns the number of rows in the chunk.
+     *
+     * @return - the number of rows.
+     */
+    abstract int cardinality();
+
+    /**
+     * Checks whether a row is present.
+     *
+     * @param low - the low 16 bits of the row.
+     * @return - true if the row is in the chunk.
+     */
+    abstract boolean contains(char low);
+
+    /**
+     * Returns the first row at or after the specified low bits.
+     *
+     * @param low - the low 16 bits to start from.
+     * @return - the low 16 bits of the first row present that is at least low, or -1 if none.
+     */
+    abstract int next(char low);
+
+    /**
+     * Adds a row, possibly switching representation.
+     *
+     * @param low - the low 16 bits of the row.
+     * @return - the container now holding the chunk, this one or a replacement.
+     */
+    abstract Container add(char low);
+
+    /**
+     * Returns the rows in both containers.
+     *
+     * @param other - the other container.
+     * @return - a new container.
+     */
+    abstract Container and(Container other);
+
+    /**
+     * Returns the rows in either container.
+     *
+     * @param other - the other container.
+     * @return - a new container.
+     */
+    abstract Container or(Container other);
+
+    /**
+     * Returns the rows in this container but not the other.
+     *
+     * @param other - the other container.
+     * @return - a new container.
+     */
+    abstract Container andNot(Container other);
+
+    /**
+     * Returns an independent copy of the container.
+     *
+     * @return - the copy.
+     */
+    abstract Container copy();
+
+    /**
+     * Passes every row to the action, in ascending order.
+     *
+     * @param base - the chunk's high bits, already shifted into place.
+     * @param action - the action to run on each row.
+     */
+    abstract void forEach(int base, IntConsumer action);
+
+    /**
+     * Writes every row into an array, in ascending order.
+     *
+     * @param base - the chunk's high bits, already shifted into place.
+     * @param out - the array.
+     * @param n - the position to write the first row at.
+     * @return - the position after the last row written.
+     */
+    abstract int copyTo(int base, int[] out, int n);
+
+    /**
+     * Estimates the heap used by the container.
+     *
+     * @return - the estimated size in bytes.
+     */
+    abstract long bytes();
+
+    /**
+     * Checks whether two containers hold the same rows, whatever their representation.
+     *
+     * @param other - the other container.
+     * @return - true if both hold the same rows.
+     */
+    boolean sameRows(Container other) {
+      if (cardinality() != other.cardinality()) {
+        return false;
+      }
+      int[] mine = new int[cardinality()];
+      int[] theirs = new int[cardinality()];
+      copyTo(0, mine, 0);
+      other.copyTo(0, theirs, 0);
+      return Arrays.equals(mine, theirs);
+    }
+  }
+
+  /**
+   * A chunk of at most ARRAY_MAX rows, held as a sorted array.
+   */
+  private static final class ArrayContainer extends Container {
+    private char[] values; // the low bits of the rows, ascending; may have spare capacity
+    private int cardinality; // number of values in use
+
+    ArrayContainer(char[] values, int cardinality) {
+      this.values = values;
+      this.cardinality = cardinality;
+    }
+
+    @Override
+    int cardinality() {
+      return cardinality;
+    }
+
+    @Override
+    boolean contains(char low) {
+      return Arrays.binarySearch(values, 0, cardinality, low) >= 0;
+    }
+
+    @Override
+    int next(char low) {
+      int at = Arrays.binarySearch(values, 0, cardinality, low);
+      at = at >= 0 ? at : -at - 1;
+      return at < cardinality ? values[at] : -1;
+    }
+
+    @Override
+    Container add(char low) {
+      int at = cardinality > 0 && values[cardinality - 1] < low
+          ? -cardinality - 1 : Arrays.binarySearch(values, 0, cardinality, low);
+      if (at >= 0) {
+        return this;
+      }
+      if (cardinality == ARRAY_MAX) {
+        return toBitmap().add(low);
+      }
+      at = -at - 1;
+      if (cardinality == values.length) {
+        values = Arrays.copyOf(values, Math.min(ARRAY_MAX, Math.max(4, cardinality * 2)));
+      }
+      System.arraycopy(values, at, values, at + 1, cardinality - at);
+      values[at] = low;
+      cardinality++;
+      return this;
+    }
+
+    @Override
+    Container and(Container other) {
+      char[] out = new char[Math.min(cardinality, other.cardinality())];
+      int n = 0;
+      if (other instanceof ArrayContainer array) {
+        for (int i = 0, j = 0; i < cardinality && j < array.cardinality; ) {
+          if (values[i] < array.values[j]) {
+            i++;
+          } else if (values[i] > array.values[j]) {
+            j++;
+          } else {
+            out[n++] = values[i++];
+            j++;
+          }
+        }
+      } else {
+        for (int i = 0; i < cardinality; i++) {
+          if (other.contains(values[i])) out[n++] = values[i];
+        }
+      }
+      return new ArrayContainer(out, n);
+    }
+
+    @Override
+    Container or(Container other) {
+      if (!(other instanceof ArrayContainer array)) {
+        return other.or(this);
+      }
+      char[] out = new char[cardinality + array.cardinality];
+      int n = 0;
+      int i = 0;
+      int j = 0;
+      while (i < cardinality || j < array.cardinality) {
+        if (j == array.cardinality || (i < cardinality && values[i] < array.values[j])) {
+          out[n++] = values[i++];
+        } else if (i == cardinality || values[i] > array.values[j]) {
+          out[n++] = array.values[j++];
+        } else {
+          out[n++] = values[i++];
+          j++;
+        }
+      }
+      ArrayContainer union = new ArrayContainer(out, n);
+      return n > ARRAY_MAX ? union.toBitmap() : union;
+    }
+
+    @Override
+    Container andNot(Container other) {
+      char[] out = new char[cardinality];
+      int n = 0;
+      for (int i = 0; i < cardinality; i++) {
+        if (!other.contains(values[i])) out[n++] = values[i];
+      }
+      return new ArrayContainer(out, n);
+    }
+
+    @Override
+    Container copy() {
+      return new ArrayContainer(Arrays.copyOf(values, cardinality), cardinality);
+    }
+
+    @Override
+    void forEach(int base, IntConsumer action) {
+      for (int i = 0; i < cardinality; i++) {
+        action.accept(base | values[i]);
+      }
+    }
+
+    @Override
+    int copyTo(int base, int[] out, int n) {
+      for (int i = 0; i < cardinality; i++) {
+        out[n++] = base | values[i];
+      }
+      return n;
+    }
+
+    @Override
+    long bytes() {
+      return 16 + 16 + 2L * values.length;
+    }
+
+    /**
+     * Converts the container to a bitmap.
+     *
+     * @return - a bitmap container holding the same rows.
+     */
+    BitmapContainer toBitmap() {
+      long[] words = new long[WORDS];
+      for (int i = 0; i < cardinality; i++) {
+        words[values[i] >>> 6] |= 1L << values[i];
+      }
+      return new BitmapContainer(words, cardinality);
+    }
+  }
+
+  /**
+   * A chunk of more than ARRAY_MAX rows, held as one bit per possible row.
+   */
+  private static final class BitmapContainer extends Container {
+    private final long[] words; // one bit per row of the chunk
+    private int cardinality; // number of set bits
+
+    BitmapContainer(long[] words, int cardinality) {
+      this.words = words;
+      this.cardinality = cardinality;
+    }
+
+    /**
+     * Counts the set bits of some words.
+     *
+     * @param words - the words.
+     * @return - the number of set bits.
+     */
+    static int count(long[] words) {
+      int cardinality = 0;
+      for (long word : words) {
+        cardinality += Long.bitCount(word);
+      }
+      return cardinality;
+    }
+
+    @Override
+    int cardinality() {
+      return cardinality;
+    }
+
+    @Override
+    boolean contains(char low) {
+      return (words[low >>> 6] & (1L << low)) != 0;
+    }
+
+    @Override
+    int next(char low) {
+      int i = low >>> 6;
+      long word = words[i] & (-1L << low);
+      while (word == 0) {
+        if (++i == WORDS) {
+          return -1;
+        }
+        word = words[i];
+      }
+      return i << 6 | Long.numberOfTrailingZeros(word);
+    }
+
+    @Override
+    Container add(char low) {
+      if (!contains(low)) {
+        words[low >>> 6] |= 1L << low;
+        cardinality++;
+      }
+      return this;
+    }
+
+    @Override
+    Container and(Container other) {
+      if (other instanceof ArrayContainer) {
+        return other.and(this);
+      }
+      long[] out = words.clone();
+      long[] theirs = ((BitmapContainer) other).words;
+      for (int i = 0; i < WORDS; i++) {
+        out[i] &= theirs[i];
+      }
+      return new BitmapContainer(out, count(out)).normalize();
+    }
+
+    @Override
+    Container or(Container other) {
+      long[] out = words.clone();
+      if (other instanceof ArrayContainer array) {
+        for (int i = 0; i < array.cardinality; i++) {
+          out[array.values[i] >>> 6] |= 1L << array.values[i];
+        }
+      } else {
+        long[] theirs = ((BitmapContainer) other).words;
+        for (int i = 0; i < WORDS; i++) {
+          out[i] |= theirs[i];
+        }
+      }
+      return new BitmapContainer(out, count(out));
+    }
+
+    @Override
+    Container andNot(Container other) {
+      long[] out = words.clone();
+      if (other instanceof ArrayContainer array) {
+        for (int i = 0; i < array.cardinality; i++) {
+          out[array.values[i] >>> 6] &= ~(1L << array.values[i]);
+        }
+      } else {
+        long[] theirs = ((BitmapContainer) other).words;
+        for (int i = 0; i < WORDS; i++) {
+          out[i] &= ~theirs[i];
+        }
+      }
+      return new BitmapContainer(out, count(out)).normalize();
+    }
+
+    @Override
+    Container copy() {
+      return new BitmapContainer(words.clone(), cardinality);
+    }
+
+    @Override
+    void forEach(int base, IntConsumer action) {
+      for (int i = 0; i < WORDS; i++) {
+        for (long word = words[i]; word != 0; word &= word - 1) {
+          action.accept(base | (i << 6) | Long.numberOfTrailingZeros(word));
+        }
+      }
+    }
+
+    @Override
+    int copyTo(int base, int[] out, int n) {
+      for (int i = 0; i < WORDS; i++) {
+        for (long word = words[i]; word != 0; word &= word - 1) {
+          out[n++] = base | (i << 6) | Long.numberOfTrailingZeros(word);
+        }
+      }
+      return n;
+    }
+
+    @Override
+    long bytes() {
+      return 16 + 16 + 8L * WORDS;
+    }
+
+    /**
+     * Converts the container to a sorted array if it has few enough rows to be smaller that way.
+     *
+     * @return - this container, or an array container holding the same rows.
+     */
+    Container normalize() {
+      if (cardinality > ARRAY_MAX) {
+        return this;
+      }
+      char[] values = new char[cardinality];
+      int n = 0;
+      for (int i = 0; i < WORDS; i++) {
+        for (long word = words[i]; word != 0; word &= word - 1) {
+          values[n++] = (char) ((i << 6) | Long.numberOfTrailingZeros(word));
+        }
+      }
+      return new ArrayContainer(values, n);
+    }
+  }
+}
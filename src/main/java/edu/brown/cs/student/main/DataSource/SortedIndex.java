@@ -0,0 +1,242 @@
+package edu.brown.cs.student.main.DataSource;
+
+import java.util.Arrays;
+
+/**
+ * Quick Summary:
+ * A sorted index over the numeric values of one CSV column, for range and comparison searches.
+ * Holds the column's values in ascending order alongside the row of each, so the rows within a
+ * range are found with two binary searches and read off as one contiguous slice: O(log n + k).
+ * Typed columns contribute their stored values (dates as days since the epoch); text columns
+ * contribute every cell that reads as a number, such as "74,489.00" with its quotes and commas.
+ * Cells that are not numbers, including a header, are left out.
+ */
+
+/**
+ * A sorted index over the numeric values of one CSV column.
+ */
+public class SortedIndex {
+  private final CSVColumn column; // the indexed column, used to read bounds in its format
+  private final double[] keys; // numeric cell values in ascending order
+  private final int[] rows; // the row of each key; ascending among equal keys
+
+  /**
+   * Builds an index over the specified column.
+   *
+   * @param column - the column to index.
+   */
+  public SortedIndex(CSVColumn column) {
+    this.column = column;
+    double[] keys = new double[column.size()];
+    int[] rows = new int[column.size()];
+    int size = 0;
+    for (int row = 0; row < column.size(); row++) {
+      double key = value(row);
+      if (!Double.isNaN(key)) {
+        keys[size] = key;
+        rows[size++] = row;
+      }
+    }
+    this.keys = Arrays.copyOf(keys, size);
+    this.rows = Arrays.copyOf(rows, size);
+    sort(this.keys, this.rows);
+  }
+
+  /**
+   * Returns the rows whose value lies within the specified bounds, in ascending order of value.
+   *
+   * @param lo - the lower bound; Double.NEGATIVE_INFINITY for none.
+   * @param loInclusive - whether a value equal to lo is within the range.
+   * @param hi - the upper bound; Double.POSITIVE_INFINITY for none.
+   * @param hiInclusive - whether a value equal to hi is within the range.
+   * @return - the matching row indices.
+   */
+  public int[] rows(double lo, boolean loInclusive, double hi, boolean hiInclusive) {
+    int from = loInclusive ? firstAtLeast(lo) : firstAbove(lo);
+    int to = hiInclusive ? firstAbove(hi) : firstAtLeast(hi);
+    return from < to ? Arrays.copyOfRange(rows, from, to) : new int[0];
+  }
+
+  /**
+   * Returns the number of rows whose value lies within the specified bounds, in O(log n).
+   *
+   * @param lo - the lower bound; Double.NEGATIVE_INFINITY for none.
+   * @param loInclusive - whether a value equal to lo is within the range.
+   * @param hi - the upper bound; Double.POSITIVE_INFINITY for none.
+   * @param hiInclusive - whether a value equal to hi is within the range.
+   * @return - the number of matching rows.
+   */
+  public int count(double lo, boolean loInclusive, double hi, boolean hiInclusive) {
+    int from = loInclusive ? firstAtLeast(lo) : firstAbove(lo);
+    int to = hiInclusive ? firstAbove(hi) : firstAtLeast(hi);
+    return Math.max(0, to - from);
+  }
+
+  /**
+   * Returns the indexed value of the cell at the specified row, read from the column.
+   *
+   * @param row - the row index.
+   * @return - the value, or NaN if the cell is not a number.
+   */
+  public double value(int row) {
+    if (column instanceof TypedColumn typed) {
+      return typed.hasValue(row) ? typed.doubleValue(row) : Double.NaN;
+    }
+    return parseNumber(column.get(row));
+  }
+
+  /**
+   * Reads a search bound in the format of the indexed column: a date for a date column,
+   * otherwise a number.
+   *
+   * @param value - the bound as text.
+   * @return - the bound as a value comparable with the indexed values.
+   * @throws NumberFormatException - if the text is not a number, or not a date for a date column.
+   */
+  public double key(String value) {
+    if (column instanceof DateColumn dates) {
+      return dates.parseDay(value);
+    }
+    double key = parseNumber(value);
+    if (Double.isNaN(key)) {
+      throw new NumberFormatException("Value '" + value + "' is not a number");
+    }
+    return key;
+  }
+
+  /**
+   * Returns the number of indexed cells.
+   *
+   * @return - the number of cells holding a number.
+   */
+  public int size() {
+    return this.keys.length;
+  }
+
+  /**
+   * Estimates the heap used by the index.
+   *
+   * @return - the estimated size in bytes.
+   */
+  public long bytes() {
+    return 32 + 12L * keys.length;
+  }
+
+  /**
+   * Reads a cell as a number, allowing surrounding double quotes and thousands separators.
+   *
+   * @param cell - the cell, or null.
+   * @return - the number, or NaN if the cell is not a finite number.
+   */
+  public static double parseNumber(String cell) {
+    if (cell == null) {
+      return Double.NaN;
+    }
+    String text = cell.strip();
+    if (text.length() > 1 && text.startsWith("\"") && text.endsWith("\"")) {
+      text = text.substring(1, text.length() - 1).strip();
+    }
+    if (text.isEmpty()) {
+      return Double.NaN;
+    }
+    // only plain decimal notation, so cells like "NaN", "1d" or "0x1p3" are not numbers
+    StringBuilder digits = new StringBuilder(text.length());
+    for (int i = 0; i < text.length(); i++) {
+      char c = text.charAt(i);
+      if (c != ',') {
+        if ((c < '0' || c > '9') && c != '.' && c != '-' && c != '+' && c != 'e' && c != 'E') {
+          return Double.NaN;
+        }
+        digits.append(c);
+      }
+    }
+    try {
+      double value = Double.parseDouble(digits.toString());
+      return Double.isInfinite(value) ? Double.NaN : value;
+    } catch (NumberFormatException e) {
+      return Double.NaN;
+    }
+  }
+
+  /**
+   * Returns the position of the first key that is at least the specified key.
+   *
+   * @param key - the key.
+   * @return - a position in [0, size()].
+   */
+  private int firstAtLeast(double key) {
+    int lo = 0;
+    int hi = keys.length;
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (keys[mid] < key) {
+        lo = mid + 1;
+      } else {
+        hi = mid;
+      }
+    }
+    return lo;
+  }
+
+  /**
+   * Returns the position of the first key greater than the specified key.
+   *
+   * @param key - the key.
+   * @return - a position in [0, size()].
+   */
+  private int firstAbove(double key) {
+    int lo = 0;
+    int hi = keys.length;
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (keys[mid] <= key) {
+        lo = mid + 1;
+      } else {
+        hi = mid;
+      }
+    }
+    return lo;
+  }
+
+  /**
+   * Sorts keys ascending, moving each row with its key. The sort is a stable bottom-up merge sort,
+   * so rows with equal keys stay in row order.
+   *
+   * @param keys - the keys to sort.
+   * @param rows - the rows, parallel to keys.
+   */
+  private static void sort(double[] keys, int[] rows) {
+    int n = keys.length;
+    double[] keyBuffer = new double[n];
+    int[] rowBuffer = new int[n];
+    double[] fromKeys = keys;
+    int[] fromRows = rows;
+    for (int width = 1; width < n; width *= 2) {
+      for (int lo = 0; lo < n; lo += 2 * width) {
+        int mid = Math.min(lo + width, n);
+        int hi = Math.min(lo + 2 * width, n);
+        int left = lo;
+        int right = mid;
+        for (int out = lo; out < hi; out++) {
+          if (left < mid && (right >= hi || fromKeys[left] <= fromKeys[right])) {
+            keyBuffer[out] = fromKeys[left];
+            rowBuffer[out] = fromRows[left++];
+          } else {
+            keyBuffer[out] = fromKeys[right];
+            rowBuffer[out] = fromRows[right++];
+          }
+        }
+      }
+      double[] swapKeys = fromKeys;
+      fromKeys = keyBuffer;
+      keyBuffer = swapKeys;
+      int[] swapRows = fromRows;
+      fromRows = rowBuffer;
+      rowBuffer = swapRows;
+    }
+    if (fromKeys != keys) {
+      System.arraycopy(fromKeys, 0, keys, 0, n);
+      System.arraycopy(fromRows, 0, rows, 0, n);
+    }
+  }
+}
@@ -0,0 +1,55 @@
+package edu.brown.cs.student.main.DataSource;
+
+/**
+ * Quick Summary:
+ * A CSV column stored as one contiguous array of strings.
+ * Used for high-cardinality columns where a dictionary would not save memory.
+ */
+
+/**
+ * A CSV column stored as one contiguous array of strings.
+ */
+public class StringColumn implements CSVColumn {
+  private final String[] values; // cell values, one per row
+
+  /**
+   * Constructs a StringColumn over the specified values.
+   *
+   * @param values - the cell values, one per row; null marks a missing cell.
+   */
+  public StringColumn(String[] values) {
+    this.values = values;
+  }
+
+  /**
+   * Returns the number of rows in the column.
+   *
+   * @return - the number of rows.
+   */
+  public int size() {
+    return this.values.length;
+  }
+
+  /**
+   * Returns the cell at the specified row.
+   *
+   * @param row - the row index.
+   * @return - the cell value, or null if the row has no cell in this column.
+   */
+  public String get(int row) {
+    return this.values[row];
+  }
+
+  /**
+   * Estimates the heap used by the column.
+   *
+   * @return - the estimated size in bytes.
+   */
+  public long bytes() {
+    long bytes = 16 + 4L * values.length;
+    for (String value : values) {
+      bytes += CSVColumn.bytes(value);
+    }
+    return bytes;
+  }
+}
@@ -0,0 +1,203 @@
+package edu.brown.cs.student.main.DataSource;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Quick Summary:
+ * A trigram index over one CSV column (or over every column of each row), used to prune
+ * candidate rows before substring matching.
+ * Each cell is case-folded character by character and every run of three characters is mapped to
+ * the rows containing it. A row can only contain a query if it contains all of the query's
+ * trigrams, so intersecting their posting lists yields a small superset of the matching rows,
+ * which the caller then verifies with an ordinary comparison.
+ * Queries shorter than three characters, or with non-ASCII characters (whose case folding is not
+ * guaranteed to be character-for-character), cannot use the index.
+ */
+
+/**
+ * A trigram index over one CSV column, or over every column of each row, for substring search.
+ */
+public class TrigramIndex {
+  // rough heap cost of one distinct trigram: map entry, boxed key and array header
+  private static final long BYTES_PER_KEY = 96;
+
+  private final Map<Long, int[]> postings; // trigram -> ascending row indices
+  private final long bytes; // estimated heap used by the index
+
+  /**
+   * Constructs a TrigramIndex from finished posting lists.
+   *
+   * @param postings - maps each trigram to the ascending rows that contain it.
+   * @param bytes - the estimated heap used by the index.
+   */
+  private TrigramIndex(Map<Long, int[]> postings, long bytes) {
+    this.postings = postings;
+    this.bytes = bytes;
+  }
+
+  /**
+   * Builds an index over the specified columns, giving up if it would exceed the budget.
+   *
+   * @param data - the data to index.
+   * @param cols - the columns whose cells are indexed together, per row.
+   * @param budget - the most heap, in bytes, the index may use.
+   * @return - the index, or null if it would not fit within the budget.
+   */
+  public static TrigramIndex build(CSVData data, int[] cols, long budget) {
+    Map<Long, Postings> building = new HashMap<>();
+    long bytes = 0;
+    for (int row = 0; row < data.rowCount(); row++) {
+      for (int col : cols) {
+        String cell = col < data.width(row) ? data.get(row, col) : null;
+        if (cell == null) {
+          continue;
+        }
+        for (int i = 0; i + 3 <= cell.length(); i++) {
+          long key = key(cell, i);
+          Postings rows = building.get(key);
+          if (rows == null) {
+            rows = new Postings();
+            building.put(key, rows);
+            bytes += BYTES_PER_KEY;
+          }
+          if (rows.add(row)) {
+            bytes += Integer.BYTES;
+          }
+        }
+        if (bytes > budget) {
+          return null;
+        }
+      }
+    }
+    Map<Long, int[]> postings = new HashMap<>(building.size() * 4 / 3 + 1);
+    for (Map.Entry<Long, Postings> entry : building.entrySet()) {
+      postings.put(entry.getKey(), entry.getValue().toArray());
+    }
+    return new TrigramIndex(postings, bytes);
+  }
+
+  /**
+   * Checks whether the index can answer a substring query for the specified value.
+   *
+   * @param value - the query value.
+   * @return - true if the value has at least one trigram and is pure ASCII.
+   */
+  public static boolean supports(String value) {
+    if (value.length() < 3) {
+      return false;
+    }
+    for (int i = 0; i < value.length(); i++) {
+      if (value.charAt(i) > 0x7F) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns the rows that contain every trigram of the value, ignoring case.
+   * Every row whose cells contain the value is included; some included rows may not match.
+   *
+   * @param value - the query value; supports(value) must be true.
+   * @return - the candidate row indices in ascending order.
+   */
+  public int[] candidates(String value) {
+    int n = value.length() - 2;
+    int[][] lists = new int[n][];
+    for (int i = 0; i < n; i++) {
+      lists[i] = postings.get(key(value, i));
+      if (lists[i] == null) {
+        return new int[0];
+      }
+    }
+    // intersect starting from the shortest list so the working set only shrinks
+    Arrays.sort(lists, (a, b) -> Integer.compare(a.length, b.length));
+    int[] result = lists[0];
+    for (int i = 1; i < n && result.length > 0; i++) {
+      result = intersect(result, lists[i]);
+    }
+    return result;
+  }
+
+  /**
+   * Returns the estimated heap used by the index.
+   *
+   * @return - the estimated size in bytes.
+   */
+  public long bytes() {
+    return this.bytes;
+  }
+
+  /**
+   * Intersects two ascending row lists.
+   *
+   * @param a - the first list.
+   * @param b - the second list.
+   * @return - the rows present in both, in ascending order.
+   */
+  private static int[] intersect(int[] a, int[] b) {
+    int[] out = new int[Math.min(a.length, b.length)];
+    int n = 0;
+    for (int i = 0, j = 0; i < a.length && j < b.length; ) {
+      if (a[i] < b[j]) {
+        i++;
+      } else if (a[i] > b[j]) {
+        j++;
+      } else {
+        out[n++] = a[i];
+        i++;
+        j++;
+      }
+    }
+    return Arrays.copyOf(out, n);
+  }
+
+  /**
+   * Packs the case-folded trigram starting at the specified offset into a long.
+   *
+   * @param s - the string.
+   * @param i - the offset of the first character.
+   * @return - the packed trigram.
+   */
+  private static long key(String s, int i) {
+    return ((long) Character.toLowerCase(s.charAt(i)) << 32)
+        | ((long) Character.toLowerCase(s.charAt(i + 1)) << 16)
+        | Character.toLowerCase(s.charAt(i + 2));
+  }
+
+  /**
+   * A growable, ascending, duplicate-free list of rows used while building.
+   */
+  private static final class Postings {
+    private int[] rows = new int[4];
+    private int size = 0;
+
+    /**
+     * Appends a row unless it is already the last row in the list.
+     *
+     * @param row - the row to add; rows arrive in ascending order.
+     * @return - true if the row was added.
+     */
+    boolean add(int row) {
+      if (size > 0 && rows[size - 1] == row) {
+        return false;
+      }
+      if (size == rows.length) {
+        rows = Arrays.copyOf(rows, size * 2);
+      }
+      rows[size++] = row;
+      return true;
+    }
+
+    /**
+     * Returns the rows as an exactly sized array.
+     *
+     * @return - the rows.
+     */
+    int[] toArray() {
+      return Arrays.copyOf(rows, size);
+    }
+  }
+}
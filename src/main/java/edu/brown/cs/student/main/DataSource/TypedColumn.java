@@ -0,0 +1,299 @@
+package edu.brown.cs.student.main.DataSource;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntPredicate;
+import java.util.function.UnaryOperator;
+
+/**
+ * Quick Summary:
+ * A CSV column stored as primitive values rather than strings.
+ * Every cell's text is reproduced exactly from its value, so a column is only typed when each
+ * cell formats back to the text it was parsed from. The few cells that do not, such as a header
+ * or a missing value, are kept verbatim as exceptions, looked up by binary search.
+ * Searches compare typed cells without formatting them into Strings: an exact match parses the
+ * search text once and compares stored values, and a substring match formats each cell into a
+ * buffer reused by the searching thread.
+ */
+
+/**
+ * A CSV column stored as primitive values rather than strings.
+ */
+public abstract class TypedColumn implements CSVColumn {
+  // number of cells a column's type is inferred from
+  static final int SAMPLE_SIZE = 1024;
+  // share of sampled cells that must parse for a type to be tried on the whole column
+  static final double SAMPLE_MATCH = 0.9;
+
+  private final int size; // number of rows
+  private final int[] exceptionRows; // ascending rows whose cell is kept verbatim
+  private final String[] exceptionValues; // the verbatim cells, parallel to exceptionRows
+
+  /**
+   * Constructs a TypedColumn.
+   *
+   * @param size - the number of rows.
+   * @param exceptions - the cells that are kept verbatim.
+   */
+  protected TypedColumn(int size, Exceptions exceptions) {
+    this(size, exceptions.rows(), exceptions.values());
+  }
+
+  /**
+   * Constructs a TypedColumn with the specified verbatim cells.
+   *
+   * @param size - the number of rows.
+   * @param exceptionRows - the ascending rows whose cell is kept verbatim.
+   * @param exceptionValues - the verbatim cells, parallel to exceptionRows.
+   */
+  protected TypedColumn(int size, int[] exceptionRows, String[] exceptionValues) {
+    this.size = size;
+    this.exceptionRows = exceptionRows;
+    this.exceptionValues = exceptionValues;
+  }
+
+  /**
+   * Returns the type the column is stored as.
+   *
+   * @return - the column type.
+   */
+  public abstract ColumnType type();
+
+  /**
+   * Returns the value at the specified row as a double, for comparing and aggregating.
+   * Only meaningful where hasValue(row) is true.
+   *
+   * @param row - the row index.
+   * @return - the value.
+   */
+  public abstract double doubleValue(int row);
+
+  /**
+   * Formats the value at the specified row back into its cell text.
+   *
+   * @param row - the row index, which is not an exception.
+   * @param text - the buffer the cell text is appended to.
+   */
+  protected abstract void format(int row, StringBuilder text);
+
+  /**
+   * Returns a test of whether the value at a row formats to exactly the specified text, parsing
+   * the text once rather than formatting every value.
+   *
+   * @param text - the text to compare with.
+   * @return - the test, only meaningful where hasValue(row) is true.
+   */
+  protected abstract IntPredicate valueEquals(String text);
+
+  /**
+   * Returns a column sharing this column's values but with other verbatim cells.
+   *
+   * @param values - the verbatim cells, parallel to this column's exception rows.
+   * @return - the column.
+   */
+  protected abstract TypedColumn withExceptions(String[] values);
+
+  /**
+   * Estimates the heap used by the primitive values.
+   *
+   * @return - the estimated size in bytes.
+   */
+  protected abstract long valueBytes();
+
+  /**
+   * Returns the number of rows in the column.
+   *
+   * @return - the number of rows.
+   */
+  public int size() {
+    return this.size;
+  }
+
+  /**
+   * Returns the cell at the specified row.
+   *
+   * @param row - the row index.
+   * @return - the cell value, or null if the row has no cell in this column.
+   */
+  public String get(int row) {
+    int exception = Arrays.binarySearch(exceptionRows, row);
+    if (exception >= 0) {
+      return exceptionValues[exception];
+    }
+    StringBuilder text = new StringBuilder();
+    format(row, text);
+    return text.toString();
+  }
+
+  /**
+   * Returns a test of whether the cell at a row equals, or contains, the specified text, as
+   * get(row) would, but without building a String for typed cells.
+   *
+   * @param text - the text to look for.
+   * @param exact - true to match whole cells, false to match cells containing the text.
+   * @return - the test, which never matches a null cell; safe to call from several threads.
+   */
+  @Override
+  public IntPredicate matcher(String text, boolean exact) {
+    IntPredicate values = exact ? valueEquals(text) : valueContains(text);
+    return row -> {
+      int exception = Arrays.binarySearch(exceptionRows, row);
+      if (exception < 0) {
+        return values.test(row);
+      }
+      String cell = exceptionValues[exception];
+      return cell != null && (exact ? cell.equals(text) : cell.contains(text));
+    };
+  }
+
+  /**
+   * Returns a test of whether the value at a row formats to text containing the specified text.
+   * Each thread formats into its own buffer, reused from row to row.
+   *
+   * @param text - the text to look for.
+   * @return - the test, only meaningful where hasValue(row) is true.
+   */
+  private IntPredicate valueContains(String text) {
+    ThreadLocal<StringBuilder> buffers = ThreadLocal.withInitial(StringBuilder::new);
+    return row -> {
+      StringBuilder cell = buffers.get();
+      cell.setLength(0);
+      format(row, cell);
+      return cell.indexOf(text) >= 0;
+    };
+  }
+
+  /**
+   * Returns whether the cell at the specified row holds a typed value.
+   *
+   * @param row - the row index.
+   * @return - false if the cell is kept verbatim, e.g. a header or a missing cell.
+   */
+  public boolean hasValue(int row) {
+    return Arrays.binarySearch(exceptionRows, row) < 0;
+  }
+
+  /**
+   * Returns a column with every verbatim cell transformed, sharing this column's values.
+   * Typed cells are unaffected, so fn must leave formatted values unchanged.
+   *
+   * @param fn - the transformation applied to each non-null verbatim cell.
+   * @return - the transformed column.
+   */
+  public TypedColumn mapExceptions(UnaryOperator<String> fn) {
+    String[] mapped = new String[exceptionValues.length];
+    for (int i = 0; i < mapped.length; i++) {
+      mapped[i] = exceptionValues[i] == null ? null : fn.apply(exceptionValues[i]);
+    }
+    return withExceptions(mapped);
+  }
+
+  /**
+   * Estimates the heap used by the column: the values plus the verbatim cells.
+   *
+   * @return - the estimated size in bytes.
+   */
+  public long bytes() {
+    long bytes = valueBytes() + 32 + 8L * exceptionRows.length;
+    for (String value : exceptionValues) {
+      bytes += CSVColumn.bytes(value);
+    }
+    return bytes;
+  }
+
+  /**
+   * Returns the ascending rows whose cell is kept verbatim.
+   *
+   * @return - the rows; shared, must not be modified.
+   */
+  protected int[] exceptionRows() {
+    return this.exceptionRows;
+  }
+
+  /**
+   * Infers a type for the specified values and encodes them with it.
+   * Numbers are tried before dates.
+   *
+   * @param values - the cell values, one per row; null marks a missing cell.
+   * @return - the typed column, or null if no type fits the values.
+   */
+  static TypedColumn infer(String[] values) {
+    List<String> sample = sample(values);
+    if (sample.isEmpty()) {
+      return null;
+    }
+    TypedColumn column = NumberColumn.infer(values, sample);
+    return column != null ? column : DateColumn.infer(values, sample);
+  }
+
+  /**
+   * Picks up to SAMPLE_SIZE non-empty cells spread evenly over the column.
+   *
+   * @param values - the cell values.
+   * @return - the sampled cells.
+   */
+  static List<String> sample(String[] values) {
+    int step = Math.max(1, values.length / SAMPLE_SIZE);
+    List<String> sample = new ArrayList<>();
+    for (int row = 0; row < values.length && sample.size() < SAMPLE_SIZE; row += step) {
+      if (values[row] != null && !values[row].isEmpty()) {
+        sample.add(values[row]);
+      }
+    }
+    return sample;
+  }
+
+  /**
+   * Collects the cells of a column that its type cannot represent, up to a limit of one in 64
+   * rows (plus one, so a header row always fits).
+   */
+  static final class Exceptions {
+    private final int max; // most cells that may be collected
+    private final List<Integer> rows = new ArrayList<>(); // rows of the collected cells
+    private final List<String> values = new ArrayList<>(); // the collected cells
+
+    /**
+     * Constructs an empty collection for a column of the specified size.
+     *
+     * @param size - the number of rows in the column.
+     */
+    Exceptions(int size) {
+      this.max = size / 64 + 1;
+    }
+
+    /**
+     * Records a cell, which must come after every cell recorded so far.
+     *
+     * @param row - the row of the cell.
+     * @param value - the cell.
+     * @return - false if the limit is exceeded and the column should not be typed.
+     */
+    boolean add(int row, String value) {
+      if (rows.size() == max) {
+        return false;
+      }
+      rows.add(row);
+      values.add(value);
+      return true;
+    }
+
+    /**
+     * Returns the rows of the collected cells.
+     *
+     * @return - the ascending rows.
+     */
+    private int[] rows() {
+      return rows.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Returns the collected cells.
+     *
+     * @return - the cells, parallel to rows().
+     */
+    private String[] values() {
+      return values.toArray(new String[0]);
+    }
+  }
+}
@@ -0,0 +1,32 @@
+package edu.brown.cs.student.main.Exceptions;
+
+/**
+ * Quick Summary:
+ * Wraps a FactoryFailureException in an unchecked exception.
+ * Used where a row is created inside an Iterator or Stream, which cannot throw checked exceptions.
+ */
+
+/**
+ * Wraps a FactoryFailureException in an unchecked exception.
+ */
+public class UncheckedFactoryFailureException extends RuntimeException {
+
+  /**
+   * Constructs an UncheckedFactoryFailureException wrapping the specified FactoryFailureException.
+   *
+   * @param cause - the FactoryFailureException being wrapped.
+   */
+  public UncheckedFactoryFailureException(FactoryFailureException cause) {
+    super(cause.getMessage(), cause);
+  }
+
+  /**
+   * Returns the wrapped FactoryFailureException.
+   *
+   * @return - the FactoryFailureException being wrapped.
+   */
+  @Override
+  public FactoryFailureException getCause() {
+    return (FactoryFailureException) super.getCause();
+  }
+}
@@ -7,17 +7,21 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.Reader;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Quick Summary:
  * A CSV parser that reads from a Reader and creates objects using a CreatorFromRow strategy.
- * The parser reads each line from the Reader and splits it into a list of strings using a regular expression.
+ * The parser reads each record from the Reader and splits it into a list of strings with a single-pass CSVTokenizer.
  * The parser then uses the CreatorFromRow strategy to create an object from each line.
  * The parser can handle lines with different numbers of columns, but it will print a warning if the number of
  * columns is not a equal for all likes.
  * The parser throws a FactoryFailureException if the CreatorFromRow strategy fails to create an object.
+ * Rows can also be pulled lazily through iterator() or stream(), which hold only one row at a time.
  */
 
 /**
@@ -31,8 +35,6 @@ public class CSVParser<T> {
   private BufferedReader reader;
   // the strategy used by the parser to create objects from rows.
   private CreatorFromRow<T> strat;
-  // the regular expression used by the parser to create objects from rows.
-  static final String regex = ",(?=([^\\\"]*\\\"[^\\\"]*\\\")*(?![^\\\"]*\\\"))";
 
   /**
    * Creates a new CSV parser that reads from the specified reader and uses the specified strategy to create objects.
@@ -55,7 +57,7 @@ public class CSVParser<T> {
 
   /**
    * Parses the input and creates a list of objects.
-   * The parser reads each line from the reader and splits it into a list of strings using the regex.
+   * The parser reads each record from the reader and splits it into a list of strings using a CSVTokenizer.
    * The parser then uses the CreatorFromRow strategy to create an object from each line.
    * If the number of columns is not equal for all lines, the parser will print a warning.
    * If the CreatorFromRow strategy fails to create an object, the parser will throw a FactoryFailureException.
@@ -75,12 +77,13 @@ public class CSVParser<T> {
 
     // the list of objects created by the parser
     List<T> mtrx = new ArrayList<>();
-    // the current line read from the reader
-    String buf;
-    // read each line from the reader and split it into a list of strings
+    // the tokenizer that splits the reader's contents into records
+    CSVTokenizer tokenizer = new CSVTokenizer(reader);
+    // the current record read from the tokenizer
+    List<String> splitLine;
+    // read each record from the reader as a list of strings
     try {
-      while ((buf = reader.readLine()) != null) {
-        List<String> splitLine = Arrays.asList(buf.split(regex));
+      while ((splitLine = tokenizer.nextRow()) != null) {
         mtrx.add(strat.create(splitLine));
         rowSize = splitLine.size();
         if (expectedRowSize == Integer.MAX_VALUE) expectedRowSize = rowSize;
@@ -89,10 +92,39 @@ public class CSVParser<T> {
               "Warning: Columns are not equal! If you intend " + "to search, the search may break!");
         }
       }
-      reader.close();
+      tokenizer.close();
     } catch (IOException e) {
       System.err.println(Errors.IOERR.report() + e);
     }
     return mtrx;
   }
-}
\ No newline at end of file
+
+  /**
+   * Returns a lazy iterator over the objects created from each row.
+   * Rows are read from the reader only as the iterator is advanced, and the reader is closed once
+   * the input is exhausted. Call close() on the iterator to release the reader early.
+   *
+   * @return - a lazy iterator over the parsed objects.
+   */
+  public CSVRowIterator<T> iterator() {
+    if (this.reader == null || this.strat == null) {
+      System.err.println("Either reader or parse strategy uninitialized. " + "Please use /load to load in a CSV file");
+      return new CSVRowIterator<>(Reader.nullReader(), row -> null);
+    }
+    return new CSVRowIterator<>(reader, strat);
+  }
+
+  /**
+   * Returns a lazy, sequential stream of the objects created from each row.
+   * Closing the stream (e.g. with try-with-resources) closes the reader.
+   * A failure in the CreatorFromRow strategy surfaces as an UncheckedFactoryFailureException.
+   *
+   * @return - a lazy stream of the parsed objects.
+   */
+  public Stream<T> stream() {
+    CSVRowIterator<T> rows = iterator();
+    return StreamSupport.stream(
+            Spliterators.spliteratorUnknownSize(rows, Spliterator.ORDERED), false)
+        .onClose(rows::close);
+  }
+}
@@ -0,0 +1,123 @@
+package edu.brown.cs.student.main.ParserUtils;
+
+import edu.brown.cs.student.main.Constants.Errors;
+import edu.brown.cs.student.main.CreatorFromRow.CreatorFromRow;
+import edu.brown.cs.student.main.Exceptions.FactoryFailureException;
+import edu.brown.cs.student.main.Exceptions.UncheckedFactoryFailureException;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Quick Summary:
+ * A lazy, pull-based iterator over the rows of a CSV input.
+ * Reads one record at a time from the reader and converts it with a CreatorFromRow strategy,
+ * so only the current row is held in memory.
+ * Closes the reader once the input is exhausted (or when close() is called early).
+ */
+
+/**
+ * A lazy, pull-based iterator over the rows of a CSV input.
+ *
+ * @param <T> - the type of objects created from each row.
+ */
+public class CSVRowIterator<T> implements Iterator<T>, Closeable {
+
+  // the tokenizer that splits the reader's contents into records
+  private final CSVTokenizer tokenizer;
+  // the strategy used to create objects from rows
+  private final CreatorFromRow<T> strat;
+  // the next record, read ahead by hasNext(), or null if none has been read
+  private List<String> nextRow;
+  // the expected size of each row
+  private int expectedRowSize;
+  // whether the reader has been closed
+  private boolean closed;
+
+  /**
+   * Constructs a CSVRowIterator that reads from the specified reader.
+   *
+   * @param reader - the reader from which rows are read.
+   * @param strat - the strategy used to create objects from rows.
+   */
+  public CSVRowIterator(Reader reader, CreatorFromRow<T> strat) {
+    this.tokenizer = new CSVTokenizer(reader);
+    this.strat = strat;
+    this.nextRow = null;
+    this.expectedRowSize = Integer.MAX_VALUE;
+    this.closed = false;
+  }
+
+  /**
+   * Checks whether another row is available, reading it ahead if necessary.
+   * If reading fails, the error is reported and iteration ends.
+   *
+   * @return - true if another row is available, false otherwise.
+   */
+  @Override
+  public boolean hasNext() {
+    if (nextRow != null) {
+      return true;
+    }
+    if (closed) {
+      return false;
+    }
+    try {
+      nextRow = tokenizer.nextRow();
+    } catch (IOException e) {
+      System.err.println(Errors.IOERR.report() + e);
+      nextRow = null;
+    }
+    if (nextRow == null) {
+      close();
+      return false;
+    }
+    if (expectedRowSize == Integer.MAX_VALUE) expectedRowSize = nextRow.size();
+    if (nextRow.size() != expectedRowSize) {
+      System.err.println(
+          "Warning: Columns are not equal! If you intend " + "to search, the search may break!");
+    }
+    return true;
+  }
+
+  /**
+   * Returns the object created from the next row.
+   *
+   * @return - the object created from the next row.
+   * @throws NoSuchElementException - if there are no more rows.
+   * @throws UncheckedFactoryFailureException - if the strategy fails to create an object.
+   */
+  @Override
+  public T next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    List<String> row = nextRow;
+    nextRow = null;
+    try {
+      return strat.create(row);
+    } catch (FactoryFailureException e) {
+      throw new UncheckedFactoryFailureException(e);
+    }
+  }
+
+  /**
+   * Closes the underlying reader. Safe to call more than once.
+   */
+  @Override
+  public void close() {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    nextRow = null;
+    try {
+      tokenizer.close();
+    } catch (IOException e) {
+      System.err.println(Errors.IOERR.report() + e);
+    }
+  }
+}
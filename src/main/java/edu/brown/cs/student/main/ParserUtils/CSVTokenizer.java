@@ -0,0 +1,150 @@
+package edu.brown.cs.student.main.ParserUtils;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Quick Summary:
+ * A single-pass state-machine tokenizer that splits CSV input into rows of fields.
+ * Each character is read exactly once; commas and line breaks inside double quotes do not split.
+ * Field text is kept exactly as it appears in the source, quotes included, so rows match what the
+ * old regex split produced. A leading byte order mark is skipped, as MappedCSVParser skips it.
+ */
+
+/**
+ * A single-pass state-machine tokenizer that splits CSV input into rows of fields.
+ */
+public class CSVTokenizer {
+
+  // size of the character buffer refilled from the reader
+  private static final int BUF_SIZE = 8192;
+
+  // the reader from which the tokenizer reads
+  private final Reader reader;
+  // the character buffer and the current read position / fill level within it
+  private final char[] buf;
+  private int pos;
+  private int limit;
+  // whether the buffer has been filled yet, so a byte order mark is only skipped at the start
+  private boolean started;
+  // the characters of the field currently being read
+  private final StringBuilder field;
+
+  /**
+   * Constructs a CSVTokenizer that reads from the specified reader.
+   *
+   * @param reader - the reader from which the tokenizer reads.
+   */
+  public CSVTokenizer(Reader reader) {
+    this.reader = reader;
+    this.buf = new char[BUF_SIZE];
+    this.pos = 0;
+    this.limit = 0;
+    this.field = new StringBuilder();
+  }
+
+  /**
+   * Reads the next record from the input.
+   * A record ends at an unquoted "\n", "\r\n" or "\r", or at the end of input. Quoted fields may
+   * span several lines; an escaped quote ("") simply closes and reopens the quoted section.
+   *
+   * @return - the fields of the next record, or null if the input is exhausted.
+   * @throws IOException - if an error occurs while reading from the reader.
+   */
+  public List<String> nextRow() throws IOException {
+    int c = read();
+    if (c == -1) {
+      return null;
+    }
+    List<String> row = new ArrayList<>();
+    boolean quoted = false;
+    field.setLength(0);
+    while (c != -1) {
+      if (c == '"') {
+        quoted = !quoted;
+        field.append('"');
+      } else if (quoted) {
+        field.append((char) c);
+      } else if (c == ',') {
+        row.add(field.toString());
+        field.setLength(0);
+      } else if (c == '\n') {
+        break;
+      } else if (c == '\r') {
+        // swallow the '\n' of a "\r\n" line ending
+        if (peek() == '\n') {
+          pos++;
+        }
+        break;
+      } else {
+        field.append((char) c);
+      }
+      c = read();
+    }
+    row.add(field.toString());
+    return row;
+  }
+
+  /**
+   * Closes the underlying reader.
+   *
+   * @throws IOException - if an error occurs while closing the reader.
+   */
+  public void close() throws IOException {
+    reader.close();
+  }
+
+  /**
+   * Reads the next character, refilling the buffer when it runs out.
+   *
+   * @return - the next character, or -1 at the end of input.
+   * @throws IOException - if an error occurs while reading from the reader.
+   */
+  private int read() throws IOException {
+    if (pos == limit && !fill()) {
+      return -1;
+    }
+    return buf[pos++];
+  }
+
+  /**
+   * Returns the next character without consuming it.
+   *
+   * @return - the next character, or -1 at the end of input.
+   * @throws IOException - if an error occurs while reading from the reader.
+   */
+  private int peek() throws IOException {
+    if (pos == limit && !fill()) {
+      return -1;
+    }
+    return buf[pos];
+  }
+
+  /**
+   * Refills the buffer from the reader.
+   *
+   * @return - true if at least one character was read, false at the end of input.
+   * @throws IOException - if an error occurs while reading from the reader.
+   */
+  private boolean fill() throws IOException {
+    int n;
+    do {
+      n = reader.read(buf, 0, BUF_SIZE);
+    } while (n == 0);
+    if (n == -1) {
+      return false;
+    }
+    pos = 0;
+    limit = n;
+    if (!started) {
+      started = true;
+      // a leading byte order mark is not part of the first field
+      if (buf[0] == '\uFEFF' && ++pos == limit) {
+        return fill();
+      }
+    }
+    return true;
+  }
+}
@@ -0,0 +1,238 @@
+package edu.brown.cs.student.main.ParserUtils;
+
+import edu.brown.cs.student.main.CreatorFromRow.CreatorFromRow;
+import edu.brown.cs.student.main.Exceptions.FactoryFailureException;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Quick Summary:
+ * A CSV parser that memory-maps a UTF-8 file and tokenizes its bytes in place.
+ * Commas, quotes and line breaks are ASCII and never occur inside a multi-byte UTF-8 sequence, so
+ * records can be split on raw bytes; each field is decoded into a String exactly once, straight
+ * from the mapped region, with no Reader, char buffer or line String in between.
+ * Files larger than one mapping window are mapped in consecutive windows, each starting at the
+ * first record the previous window could not finish.
+ * Rows match those produced by CSVParser: field text is kept verbatim, quotes included.
+ */
+
+/**
+ * A CSV parser that memory-maps a UTF-8 file and tokenizes its bytes in place.
+ *
+ * @param <T> - the type of objects created by the parser.
+ */
+public class MappedCSVParser<T> {
+
+  // the largest region a single MappedByteBuffer can address
+  private static final long MAX_WINDOW = Integer.MAX_VALUE;
+  // the UTF-8 byte order mark, skipped if present at the start of the file
+  private static final byte[] BOM = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+
+  // the file to parse
+  private final Path path;
+  // the strategy used by the parser to create objects from rows
+  private final CreatorFromRow<T> strat;
+  // the size of each mapped window
+  private final long windowSize;
+  // scratch space that field bytes are copied into before decoding
+  private byte[] scratch;
+  // the expected size of each row
+  private int expectedRowSize;
+  // offset in the file of the first window byte not yet tokenized
+  private long windowStart;
+  // number of bytes of the file consumed so far, readable from other threads
+  private volatile long bytesRead;
+
+  /**
+   * Creates a new mapped CSV parser for the specified file.
+   *
+   * @param path - the file to parse.
+   * @param strat - the strategy used by the parser to create objects from rows.
+   */
+  public MappedCSVParser(Path path, CreatorFromRow<T> strat) {
+    this(path, strat, MAX_WINDOW);
+  }
+
+  /**
+   * Creates a new mapped CSV parser with a specific window size; used to exercise remapping.
+   *
+   * @param path - the file to parse.
+   * @param strat - the strategy used by the parser to create objects from rows.
+   * @param windowSize - the number of bytes mapped at a time.
+   */
+  MappedCSVParser(Path path, CreatorFromRow<T> strat, long windowSize) {
+    this.path = path;
+    this.strat = strat;
+    this.windowSize = Math.min(windowSize, MAX_WINDOW);
+    this.scratch = new byte[256];
+    this.expectedRowSize = Integer.MAX_VALUE;
+  }
+
+  /**
+   * Parses the file and creates a list of objects.
+   * If the number of columns is not equal for all records, the parser will print a warning.
+   *
+   * @return - a list of objects created by the parser.
+   * @throws IOException - if the file cannot be opened or mapped, or a record is larger than a window.
+   * @throws FactoryFailureException - if the CreatorFromRow strategy fails to create an object.
+   */
+  public List<T> parse() throws IOException, FactoryFailureException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      long size = channel.size();
+      return parseRange(channel, dataStart(channel, size), size);
+    }
+  }
+
+  /**
+   * Parses the records in one byte range of the file. The range must start at the beginning of a
+   * record and end at the end of a record or of the file.
+   *
+   * @param channel - the open file channel.
+   * @param start - the offset of the first byte of the range.
+   * @param end - the offset just past the last byte of the range.
+   * @return - a list of objects created from the records in the range.
+   * @throws IOException - if the file cannot be mapped, or a record is larger than a window.
+   * @throws FactoryFailureException - if the CreatorFromRow strategy fails to create an object.
+   */
+  List<T> parseRange(FileChannel channel, long start, long end)
+      throws IOException, FactoryFailureException {
+    List<T> mtrx = new ArrayList<>();
+    bytesRead = start;
+    while (start < end) {
+      long len = Math.min(windowSize, end - start);
+      MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, start, len);
+      windowStart = start;
+      int consumed = tokenize(buf, (int) len, start + len == end, mtrx);
+      if (consumed == 0) {
+        throw new IOException("Record starting at byte " + start + " does not fit in one mapping window");
+      }
+      start += consumed;
+    }
+    bytesRead = end;
+    return mtrx;
+  }
+
+  /**
+   * Returns how much of the file has been parsed so far; may be called from another thread
+   * while parse() is running.
+   *
+   * @return - the offset just past the last complete record parsed.
+   */
+  public long bytesRead() {
+    return this.bytesRead;
+  }
+
+  /**
+   * Tokenizes the records in one mapped window and adds the created objects to the output.
+   *
+   * @param buf - the mapped window.
+   * @param len - the number of bytes in the window.
+   * @param last - whether the window extends to the end of the file.
+   * @param out - the list the created objects are added to.
+   * @return - the number of bytes consumed, i.e. the offset of the first unfinished record.
+   * @throws FactoryFailureException - if the CreatorFromRow strategy fails to create an object.
+   */
+  private int tokenize(MappedByteBuffer buf, int len, boolean last, List<T> out)
+      throws FactoryFailureException {
+    int recordStart = 0;
+    int fieldStart = 0;
+    boolean quoted = false;
+    List<String> row = new ArrayList<>();
+    for (int i = 0; i < len; i++) {
+      byte b = buf.get(i);
+      if (b == '"') {
+        quoted = !quoted;
+      } else if (quoted) {
+        continue;
+      } else if (b == ',') {
+        row.add(decode(buf, fieldStart, i));
+        fieldStart = i + 1;
+      } else if (b == '\n' || b == '\r') {
+        if (b == '\r' && i + 1 == len && !last) {
+          // the '\n' of a "\r\n" may be in the next window; finish this record there
+          break;
+        }
+        row.add(decode(buf, fieldStart, i));
+        emit(row, out);
+        row = new ArrayList<>();
+        if (b == '\r' && i + 1 < len && buf.get(i + 1) == '\n') {
+          i++;
+        }
+        recordStart = i + 1;
+        fieldStart = i + 1;
+        bytesRead = windowStart + recordStart;
+      }
+    }
+    if (!last) {
+      return recordStart;
+    }
+    if (recordStart < len) {
+      row.add(decode(buf, fieldStart, len));
+      emit(row, out);
+    }
+    return len;
+  }
+
+  /**
+   * Creates an object from a completed record and checks its width against the first record.
+   *
+   * @param row - the fields of the record.
+   * @param out - the list the created object is added to.
+   * @throws FactoryFailureException - if the CreatorFromRow strategy fails to create an object.
+   */
+  private void emit(List<String> row, List<T> out) throws FactoryFailureException {
+    out.add(strat.create(row));
+    if (expectedRowSize == Integer.MAX_VALUE) expectedRowSize = row.size();
+    if (row.size() != expectedRowSize) {
+      System.err.println(
+          "Warning: Columns are not equal! If you intend " + "to search, the search may break!");
+    }
+  }
+
+  /**
+   * Decodes the UTF-8 bytes of one field straight out of the mapped window.
+   *
+   * @param buf - the mapped window.
+   * @param from - the offset of the first byte of the field.
+   * @param to - the offset just past the last byte of the field.
+   * @return - the decoded field.
+   */
+  private String decode(MappedByteBuffer buf, int from, int to) {
+    int n = to - from;
+    if (n == 0) {
+      return "";
+    }
+    if (n > scratch.length) {
+      scratch = new byte[Math.max(n, scratch.length * 2)];
+    }
+    buf.get(from, scratch, 0, n);
+    return new String(scratch, 0, n, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Returns where the data in the file starts, skipping a UTF-8 byte order mark if present.
+   *
+   * @param channel - the open file channel.
+   * @param size - the size of the file.
+   * @return - the offset of the first byte of the first record.
+   * @throws IOException - if the channel cannot be mapped.
+   */
+  static long dataStart(FileChannel channel, long size) throws IOException {
+    if (size < BOM.length) {
+      return 0;
+    }
+    MappedByteBuffer head = channel.map(FileChannel.MapMode.READ_ONLY, 0, BOM.length);
+    for (int i = 0; i < BOM.length; i++) {
+      if (head.get(i) != BOM[i]) {
+        return 0;
+      }
+    }
+    return BOM.length;
+  }
+}
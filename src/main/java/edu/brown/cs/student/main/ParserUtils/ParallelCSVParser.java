@@ -0,0 +1,231 @@
+package edu.brown.cs.student.main.ParserUtils;
+
+import edu.brown.cs.student.main.CreatorFromRow.CreatorFromRow;
+import edu.brown.cs.student.main.Exceptions.FactoryFailureException;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Quick Summary:
+ * A CSV parser that splits a large UTF-8 file into byte ranges and parses them concurrently.
+ * A line break only ends a record if it is outside quotes, and whether a byte is inside quotes
+ * depends on how many quote characters precede it in the whole file. So the file is cut into
+ * chunks, the quotes in every chunk are counted in parallel, and a running parity of those counts
+ * gives the quote state at each cut. Each cut is then moved forward to just past the next line
+ * break outside quotes, which makes every range a whole number of records.
+ * The ranges are tokenized concurrently by MappedCSVParser workers on the common ForkJoinPool,
+ * and their rows are concatenated in file order, so the result is identical to MappedCSVParser's.
+ * The CreatorFromRow strategy is called from several threads at once and must be thread-safe.
+ */
+
+/**
+ * A CSV parser that parses byte ranges of a large UTF-8 file concurrently.
+ *
+ * @param <T> - the type of objects created by the parser.
+ */
+public class ParallelCSVParser<T> {
+
+  // default number of bytes per chunk
+  public static final long DEFAULT_CHUNK_SIZE = 32L << 20;
+  // bytes read at a time while looking for a record boundary
+  private static final int PROBE_SIZE = 1 << 16;
+
+  // the file to parse
+  private final Path path;
+  // the strategy used by the parser to create objects from rows; must be thread-safe
+  private final CreatorFromRow<T> strat;
+  // the nominal number of bytes per chunk
+  private final long chunkSize;
+  // the workers parsing each range, once the ranges are known
+  private volatile List<MappedCSVParser<T>> workers = List.of();
+  // the offset each worker's range starts at
+  private volatile long[] starts = new long[0];
+
+  /**
+   * Creates a new parallel CSV parser for the specified file.
+   *
+   * @param path - the file to parse.
+   * @param strat - the strategy used to create objects from rows; must be thread-safe.
+   */
+  public ParallelCSVParser(Path path, CreatorFromRow<T> strat) {
+    this(path, strat, DEFAULT_CHUNK_SIZE);
+  }
+
+  /**
+   * Creates a new parallel CSV parser with a specific chunk size.
+   *
+   * @param path - the file to parse.
+   * @param strat - the strategy used to create objects from rows; must be thread-safe.
+   * @param chunkSize - the nominal number of bytes per chunk.
+   */
+  public ParallelCSVParser(Path path, CreatorFromRow<T> strat, long chunkSize) {
+    this.path = path;
+    this.strat = strat;
+    this.chunkSize = Math.max(1, Math.min(chunkSize, Integer.MAX_VALUE));
+  }
+
+  /**
+   * Parses the file, creating an object for each record in file order.
+   *
+   * @return - a list of objects created by the parser.
+   * @throws IOException - if the file cannot be opened or mapped, or a record is larger than a window.
+   * @throws FactoryFailureException - if the CreatorFromRow strategy fails to create an object.
+   */
+  public List<T> parse() throws IOException, FactoryFailureException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      long size = channel.size();
+      long start = MappedCSVParser.dataStart(channel, size);
+      int chunks = (int) Math.max(1, (size - start + chunkSize - 1) / chunkSize);
+      long[] cuts = new long[chunks + 1];
+      for (int i = 0; i < chunks; i++) {
+        cuts[i] = start + i * chunkSize;
+      }
+      cuts[chunks] = size;
+
+      // quote parity of each chunk, counted in parallel
+      List<Callable<Boolean>> counts = new ArrayList<>();
+      for (int i = 0; i + 1 < chunks; i++) {
+        long from = cuts[i];
+        long to = cuts[i + 1];
+        counts.add(() -> oddQuotes(channel, from, to));
+      }
+      List<Boolean> odd = invokeAll(counts);
+
+      // move each cut to the next record boundary, given the quote state at the cut
+      long[] bounds = cuts.clone();
+      boolean quoted = false;
+      for (int i = 1; i < chunks; i++) {
+        quoted ^= odd.get(i - 1);
+        bounds[i] = Math.max(bounds[i - 1], nextRecord(channel, cuts[i], size, quoted));
+      }
+
+      // tokenize the ranges concurrently, then stitch their rows together in order
+      List<MappedCSVParser<T>> parsers = new ArrayList<>();
+      List<Callable<List<T>>> ranges = new ArrayList<>();
+      for (int i = 0; i < chunks; i++) {
+        MappedCSVParser<T> parser = new MappedCSVParser<>(path, strat);
+        long from = bounds[i];
+        long to = bounds[i + 1];
+        parsers.add(parser);
+        ranges.add(() -> parser.parseRange(channel, from, to));
+      }
+      this.starts = bounds;
+      this.workers = parsers;
+      List<List<T>> parts = invokeAll(ranges);
+      int total = 0;
+      for (List<T> part : parts) {
+        total += part.size();
+      }
+      List<T> mtrx = new ArrayList<>(total);
+      for (List<T> part : parts) {
+        mtrx.addAll(part);
+      }
+      return mtrx;
+    }
+  }
+
+  /**
+   * Returns how much of the file has been parsed so far; may be called from another thread
+   * while parse() is running.
+   *
+   * @return - the number of bytes of complete records parsed.
+   */
+  public long bytesRead() {
+    List<MappedCSVParser<T>> parsers = this.workers;
+    long[] bounds = this.starts;
+    long bytes = 0;
+    for (int i = 0; i < parsers.size(); i++) {
+      bytes += Math.max(0, parsers.get(i).bytesRead() - bounds[i]);
+    }
+    return bytes;
+  }
+
+  /**
+   * Checks whether a byte range contains an odd number of quote characters.
+   *
+   * @param channel - the open file channel.
+   * @param from - the offset of the first byte of the range.
+   * @param to - the offset just past the last byte of the range.
+   * @return - true if the number of quotes is odd.
+   * @throws IOException - if the range cannot be mapped.
+   */
+  private static boolean oddQuotes(FileChannel channel, long from, long to) throws IOException {
+    MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, from, to - from);
+    boolean odd = false;
+    for (int i = 0, n = (int) (to - from); i < n; i++) {
+      if (buf.get(i) == '"') {
+        odd = !odd;
+      }
+    }
+    return odd;
+  }
+
+  /**
+   * Finds the start of the first record that begins at or after an offset.
+   *
+   * @param channel - the open file channel.
+   * @param from - the offset to search from.
+   * @param size - the size of the file.
+   * @param quoted - whether the byte at the offset is inside quotes.
+   * @return - the offset just past the first line break outside quotes, or the file size.
+   * @throws IOException - if the file cannot be mapped.
+   */
+  private static long nextRecord(FileChannel channel, long from, long size, boolean quoted)
+      throws IOException {
+    for (long pos = from; pos < size; pos += PROBE_SIZE) {
+      int n = (int) Math.min(PROBE_SIZE + 1, size - pos);
+      MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, pos, n);
+      for (int i = 0; i < Math.min(n, PROBE_SIZE); i++) {
+        byte b = buf.get(i);
+        if (b == '"') {
+          quoted = !quoted;
+        } else if (!quoted && (b == '\n' || b == '\r')) {
+          // a "\r\n" ends one record, not two
+          return pos + i + (b == '\r' && i + 1 < n && buf.get(i + 1) == '\n' ? 2 : 1);
+        }
+      }
+    }
+    return size;
+  }
+
+  /**
+   * Runs tasks on the common ForkJoinPool and collects their results in order.
+   *
+   * @param tasks - the tasks to run.
+   * @param <R> - the type of the results.
+   * @return - the results, in the order of the tasks.
+   * @throws IOException - if a task failed with an IOException.
+   * @throws FactoryFailureException - if a task failed with a FactoryFailureException.
+   */
+  private static <R> List<R> invokeAll(List<Callable<R>> tasks)
+      throws IOException, FactoryFailureException {
+    List<R> results = new ArrayList<>(tasks.size());
+    try {
+      for (Future<R> future : ForkJoinPool.commonPool().invokeAll(tasks)) {
+        results.add(future.get());
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while parsing", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException cause) {
+        throw cause;
+      } else if (e.getCause() instanceof FactoryFailureException cause) {
+        throw cause;
+      } else if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw new IOException(e.getCause());
+    }
+    return results;
+  }
+}
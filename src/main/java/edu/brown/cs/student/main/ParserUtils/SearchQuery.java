@@ -0,0 +1,534 @@
+package edu.brown.cs.student.main.ParserUtils;
+
+import edu.brown.cs.student.main.DataSource.RowBitmap;
+import edu.brown.cs.student.main.Exceptions.ColumnConversionException;
+import edu.brown.cs.student.main.ParserUtils.UtilitySearch.Comparison;
+import edu.brown.cs.student.main.ParserUtils.UtilitySearch.RowFilter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Quick Summary:
+ * Parses boolean search queries such as `Town:Providence AND NOT County:Kent` and evaluates them
+ * against a UtilitySearch.
+ * A term is `column:value` or a bare value searched in every column; values match as searchAll()
+ * does under the search options. An unquoted value starting with <, <=, >, >= or = compares the
+ * column as numbers, and `column:lo..hi` matches an inclusive range. Column names and values with
+ * spaces or special characters are written in double quotes; quoted values always match as text.
+ * Terms combine with NOT, AND and OR, in that order of precedence, and parentheses; adjacent terms
+ * without an operator are ANDed.
+ * Evaluation compiles the query into a plan: every term becomes a RowFilter with an estimate of
+ * the rows it matches, and the operands of each AND are run most selective first. Only the first
+ * operand collects rows from its index or a scan; later operands intersect with it, and operands
+ * that would need a full scan instead test just the rows still left. Negations are subtracted from
+ * the rows left rather than complemented, so a query costs at most about one pass over the data.
+ * Intermediate row sets are compressed RowBitmaps, combined chunk by chunk.
+ */
+
+/**
+ * Parses and evaluates boolean search queries.
+ */
+public final class SearchQuery {
+  // deepest nesting of parentheses and NOTs accepted; parsing and evaluation recurse per level
+  static final int MAX_DEPTH = 64;
+
+  private final Node root; // the parsed query
+
+  /**
+   * Constructs a SearchQuery from its parsed form.
+   *
+   * @param root - the parsed query.
+   */
+  private SearchQuery(Node root) {
+    this.root = root;
+  }
+
+  /**
+   * Parses a query.
+   *
+   * @param query - the query text.
+   * @return - the parsed query.
+   * @throws IllegalArgumentException - if the query is malformed; the message says why.
+   */
+  public static SearchQuery parse(String query) {
+    Parser parser = new Parser(tokenize(query));
+    Node root = parser.or();
+    if (parser.pos < parser.tokens.size()) {
+      throw new IllegalArgumentException("Unexpected '" + parser.tokens.get(parser.pos).text() + "'");
+    }
+    return new SearchQuery(root);
+  }
+
+  /**
+   * Finds every row matching the query.
+   *
+   * @param search - the search over the data, whose options apply to every text term.
+   * @return - the set of matching row indices.
+   * @throws ColumnConversionException - if a term names a column that does not exist.
+   * @throws NumberFormatException - if a comparison's bound is not a number (or date).
+   */
+  public RowBitmap evaluate(UtilitySearch search) throws ColumnConversionException {
+    Plan plan = compile(root, search);
+    return plan.rows(RowBitmap.range(search.options[0].ordinal(), search.rows), true);
+  }
+
+  /**
+   * Returns the query in a normalized, fully parenthesized form.
+   *
+   * @return - the normalized query.
+   */
+  @Override
+  public String toString() {
+    return root.toString();
+  }
+
+  /**
+   * Compiles a parsed query into a plan, ordering the operands of each AND by selectivity.
+   *
+   * @param node - the parsed query.
+   * @param search - the search over the data.
+   * @return - the plan.
+   * @throws ColumnConversionException - if a term names a column that does not exist.
+   */
+  private static Plan compile(Node node, UtilitySearch search) throws ColumnConversionException {
+    if (node instanceof Term term) {
+      RowFilter filter = term.op() == null
+          ? search.textFilter(term.value(), term.column())
+          : search.rangeFilter(term.op(), term.value(), term.to(), term.column());
+      return new FilterPlan(filter);
+    }
+    if (node instanceof Not not) {
+      return new NotPlan(compile(not.operand(), search), search.rows);
+    }
+    List<Plan> operands = new ArrayList<>();
+    for (Node operand : ((Junction) node).operands()) {
+      operands.add(compile(operand, search));
+    }
+    if (node instanceof And) {
+      // negations only remove rows, so they run last whatever their estimate
+      operands.sort(Comparator.comparingInt(
+          (Plan plan) -> plan instanceof NotPlan ? 1 : 0).thenComparingLong(Plan::estimate));
+      return new AndPlan(operands);
+    }
+    return new OrPlan(operands);
+  }
+
+  /**
+   * Splits a query into words, quoted strings, colons and parentheses.
+   *
+   * @param query - the query text.
+   * @return - the tokens.
+   * @throws IllegalArgumentException - if a quoted string is not terminated.
+   */
+  private static List<Token> tokenize(String query) {
+    List<Token> tokens = new ArrayList<>();
+    int i = 0;
+    while (i < query.length()) {
+      char c = query.charAt(i);
+      if (Character.isWhitespace(c)) {
+        i++;
+      } else if (c == '(' || c == ')' || c == ':') {
+        tokens.add(new Token(String.valueOf(c), false));
+        i++;
+      } else if (c == '"') {
+        StringBuilder text = new StringBuilder();
+        i++;
+        while (i < query.length() && query.charAt(i) != '"') {
+          if (query.charAt(i) == '\\' && i + 1 < query.length()) {
+            i++;
+          }
+          text.append(query.charAt(i++));
+        }
+        if (i == query.length()) {
+          throw new IllegalArgumentException("Unterminated quoted string");
+        }
+        i++;
+        tokens.add(new Token(text.toString(), true));
+      } else {
+        int start = i;
+        while (i < query.length() && !Character.isWhitespace(query.charAt(i))
+            && "():\"".indexOf(query.charAt(i)) < 0) {
+          i++;
+        }
+        tokens.add(new Token(query.substring(start, i), false));
+      }
+    }
+    return tokens;
+  }
+
+  /**
+   * A token of a query.
+   *
+   * @param text - the text of the token, without quotes.
+   * @param quoted - whether the token was a quoted string, which is never an operator.
+   */
+  private record Token(String text, boolean quoted) {
+
+    /**
+     * Returns whether the token is the specified unquoted word or symbol.
+     *
+     * @param word - the word or symbol.
+     * @return - true if the token is that word or symbol.
+     */
+    boolean is(String word) {
+      return !quoted && text.equals(word);
+    }
+  }
+
+  /**
+   * A recursive descent parser over the tokens of a query.
+   */
+  private static final class Parser {
+    private final List<Token> tokens; // the tokens of the query
+    private int pos; // the next token to read
+    private int depth; // parentheses and NOTs open around the next token
+
+    /**
+     * Constructs a Parser over the specified tokens.
+     *
+     * @param tokens - the tokens of the query.
+     */
+    Parser(List<Token> tokens) {
+      this.tokens = tokens;
+    }
+
+    /**
+     * Parses operands separated by OR.
+     *
+     * @return - the parsed expression.
+     */
+    Node or() {
+      List<Node> operands = new ArrayList<>(List.of(and()));
+      while (accept("OR")) {
+        operands.add(and());
+      }
+      return operands.size() == 1 ? operands.get(0) : new Or(operands);
+    }
+
+    /**
+     * Parses operands separated by AND, or by nothing at all.
+     *
+     * @return - the parsed expression.
+     */
+    Node and() {
+      List<Node> operands = new ArrayList<>(List.of(not()));
+      while (pos < tokens.size() && !peek("OR") && !peek(")")) {
+        accept("AND");
+        operands.add(not());
+      }
+      return operands.size() == 1 ? operands.get(0) : new And(operands);
+    }
+
+    /**
+     * Parses an operand, possibly negated.
+     *
+     * @return - the parsed expression.
+     */
+    Node not() {
+      if (accept("NOT")) {
+        enter();
+        Node inner = new Not(not());
+        depth--;
+        return inner;
+      }
+      if (accept("(")) {
+        enter();
+        Node inner = or();
+        if (!accept(")")) {
+          throw new IllegalArgumentException("Unmatched '('");
+        }
+        depth--;
+        return inner;
+      }
+      return term();
+    }
+
+    /**
+     * Opens one more level of nesting, failing past MAX_DEPTH.
+     */
+    private void enter() {
+      if (++depth > MAX_DEPTH) {
+        throw new IllegalArgumentException("Query nested too deeply");
+      }
+    }
+
+    /**
+     * Parses a term: an optional column and a colon, then a value, comparison or range.
+     *
+     * @return - the parsed term.
+     */
+    Node term() {
+      Token first = next();
+      if (!first.quoted() && ("():".contains(first.text()) || isKeyword(first.text()))) {
+        throw new IllegalArgumentException("Unexpected '" + first.text() + "'");
+      }
+      if (!accept(":")) {
+        return new Term(null, null, first.text(), null);
+      }
+      Token value = next();
+      if (value.quoted()) {
+        return new Term(first.text(), null, value.text(), null);
+      }
+      if ("():".contains(value.text())) {
+        throw new IllegalArgumentException("Missing value after '" + first.text() + ":'");
+      }
+      String text = value.text();
+      for (String symbol : new String[] {"<=", ">=", "<", ">", "="}) {
+        if (text.startsWith(symbol)) {
+          String bound = text.substring(symbol.length());
+          // allow a space or quotes between the symbol and its bound
+          return new Term(first.text(), Comparison.of(symbol), bound.isEmpty() ? next().text() : bound, null);
+        }
+      }
+      int range = text.indexOf("..");
+      if (range > 0 && range < text.length() - 2) {
+        return new Term(first.text(), Comparison.BETWEEN, text.substring(0, range), text.substring(range + 2));
+      }
+      return new Term(first.text(), null, text, null);
+    }
+
+    /**
+     * Returns the next token, failing if there is none.
+     *
+     * @return - the next token.
+     */
+    private Token next() {
+      if (pos == tokens.size()) {
+        throw new IllegalArgumentException("Unexpected end of query");
+      }
+      return tokens.get(pos++);
+    }
+
+    /**
+     * Returns whether the next token is the specified word or symbol.
+     *
+     * @param word - the word or symbol.
+     * @return - true if it is next.
+     */
+    private boolean peek(String word) {
+      return pos < tokens.size() && tokens.get(pos).is(word);
+    }
+
+    /**
+     * Consumes the next token if it is the specified word or symbol.
+     *
+     * @param word - the word or symbol.
+     * @return - true if it was consumed.
+     */
+    private boolean accept(String word) {
+      if (peek(word)) {
+        pos++;
+        return true;
+      }
+      return false;
+    }
+
+    /**
+     * Returns whether a word is an operator of the query language.
+     *
+     * @param word - the word.
+     * @return - true for AND, OR and NOT.
+     */
+    private static boolean isKeyword(String word) {
+      return word.equals("AND") || word.equals("OR") || word.equals("NOT");
+    }
+  }
+
+  /**
+   * A parsed query expression.
+   */
+  private sealed interface Node permits Term, Not, Junction {}
+
+  /**
+   * An expression combining several operands.
+   */
+  private sealed interface Junction extends Node permits And, Or {
+
+    /**
+     * Returns the operands.
+     *
+     * @return - the operands.
+     */
+    List<Node> operands();
+  }
+
+  /**
+   * A single search.
+   *
+   * @param column - the column to search, or null for every column.
+   * @param op - the comparison to make, or null to match text.
+   * @param value - the value to search for, or the lower bound of a range.
+   * @param to - the upper bound of a range, or null.
+   */
+  private record Term(String column, Comparison op, String value, String to) implements Node {
+    @Override
+    public String toString() {
+      String target = column == null ? "" : quote(column) + ":";
+      if (op == null) {
+        return target + quote(value);
+      }
+      return target + (op == Comparison.BETWEEN ? value + ".." + to : op.name().toLowerCase() + " " + value);
+    }
+
+    /**
+     * Quotes text for display.
+     *
+     * @param text - the text.
+     * @return - the text in double quotes.
+     */
+    private static String quote(String text) {
+      return "\"" + text.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+  }
+
+  /**
+   * The rows not matching an expression.
+   *
+   * @param operand - the negated expression.
+   */
+  private record Not(Node operand) implements Node {
+    @Override
+    public String toString() {
+      return "NOT " + operand;
+    }
+  }
+
+  /**
+   * The rows matching every operand.
+   *
+   * @param operands - the operands.
+   */
+  private record And(List<Node> operands) implements Junction {
+    @Override
+    public String toString() {
+      return "(" + String.join(" AND ", operands.stream().map(Node::toString).toList()) + ")";
+    }
+  }
+
+  /**
+   * The rows matching any operand.
+   *
+   * @param operands - the operands.
+   */
+  private record Or(List<Node> operands) implements Junction {
+    @Override
+    public String toString() {
+      return "(" + String.join(" OR ", operands.stream().map(Node::toString).toList()) + ")";
+    }
+  }
+
+  /**
+   * A compiled query expression.
+   */
+  private interface Plan {
+
+    /**
+     * Returns an upper bound on the number of rows the expression matches.
+     *
+     * @return - the estimate.
+     */
+    long estimate();
+
+    /**
+     * Finds the candidate rows that match the expression.
+     *
+     * @param candidates - the rows that may match; not modified.
+     * @param everyRow - whether the candidates are every searchable row, so no intersection is needed.
+     * @return - the matching rows, a subset of the candidates.
+     */
+    RowBitmap rows(RowBitmap candidates, boolean everyRow);
+  }
+
+  /**
+   * Evaluates a single search, testing the candidate rows one by one when there are fewer of them
+   * than the search would otherwise visit.
+   *
+   * @param filter - the compiled search.
+   */
+  private record FilterPlan(RowFilter filter) implements Plan {
+    @Override
+    public long estimate() {
+      return filter.estimate();
+    }
+
+    @Override
+    public RowBitmap rows(RowBitmap candidates, boolean everyRow) {
+      if (!everyRow && candidates.cardinality() < filter.estimate()) {
+        RowBitmap found = new RowBitmap();
+        candidates.forEach(row -> {
+          if (filter.test(row)) found.add(row);
+        });
+        return found;
+      }
+      RowBitmap found = filter.rows();
+      return everyRow ? found : found.and(candidates);
+    }
+  }
+
+  /**
+   * Evaluates a negation by removing the operand's matches from the candidates.
+   *
+   * @param operand - the negated expression.
+   * @param rowCount - the number of rows in the data, the estimate of a negation.
+   */
+  private record NotPlan(Plan operand, int rowCount) implements Plan {
+    @Override
+    public long estimate() {
+      return rowCount;
+    }
+
+    @Override
+    public RowBitmap rows(RowBitmap candidates, boolean everyRow) {
+      return candidates.andNot(operand.rows(candidates, everyRow));
+    }
+  }
+
+  /**
+   * Evaluates a conjunction, narrowing the candidates operand by operand, most selective first,
+   * and stopping as soon as none are left.
+   *
+   * @param operands - the operands, in evaluation order.
+   */
+  private record AndPlan(List<Plan> operands) implements Plan {
+    @Override
+    public long estimate() {
+      return operands.get(0).estimate();
+    }
+
+    @Override
+    public RowBitmap rows(RowBitmap candidates, boolean everyRow) {
+      RowBitmap found = candidates;
+      boolean all = everyRow;
+      for (Plan operand : operands) {
+        found = operand.rows(found, all);
+        all = false;
+        if (found.isEmpty()) {
+          break;
+        }
+      }
+      return found;
+    }
+  }
+
+  /**
+   * Evaluates a disjunction as the union of its operands' matches.
+   *
+   * @param operands - the operands.
+   */
+  private record OrPlan(List<Plan> operands) implements Plan {
+    @Override
+    public long estimate() {
+      return operands.stream().mapToLong(Plan::estimate).sum();
+    }
+
+    @Override
+    public RowBitmap rows(RowBitmap candidates, boolean everyRow) {
+      RowBitmap found = new RowBitmap();
+      for (Plan operand : operands) {
+        found = found.or(operand.rows(candidates, everyRow));
+      }
+      return found;
+    }
+  }
+}
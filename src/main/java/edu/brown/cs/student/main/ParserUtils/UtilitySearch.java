@@ -1,14 +1,36 @@
 package edu.brown.cs.student.main.ParserUtils;
 
+import edu.brown.cs.student.main.DataSource.CSVColumn;
+import edu.brown.cs.student.main.DataSource.CSVData;
+import edu.brown.cs.student.main.DataSource.RowBitmap;
+import edu.brown.cs.student.main.DataSource.SortedIndex;
+import edu.brown.cs.student.main.DataSource.TrigramIndex;
+import edu.brown.cs.student.main.DataSource.TypedColumn;
 import edu.brown.cs.student.main.Exceptions.ColumnConversionException;
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntPredicate;
+import java.util.function.Supplier;
 
 /**
  * Quick Summary:
  * Provides utility methods for searching data matrices.
  * Supports searching by specific column or across all columns.
+ * Reads cells straight from the columnar CSVData, so a single-column search walks one column.
+ * Exact-match searches on a column are answered from the column's inverted index instead, except
+ * on typed columns, which are scanned comparing stored numbers or dates with the value parsed once.
+ * Cells are tested through CSVColumn.matcher(), so typed cells are never formatted into Strings.
+ * searchAll() collects every matching row in a single pass; search() returns one match per call.
+ * Results, the rows already matched and exact-match postings are compressed RowBitmaps, so large
+ * result sets stay small and filters combine chunk by chunk.
+ * Substring searches in searchAll() check only the rows a trigram index offers, when one is available.
+ * Case-insensitive searches fold the value once and compare against lowercase shadow columns.
+ * Full scans in searchAll() split the rows across the common ForkJoinPool when parallel mode is on
+ * or the data has at least PARALLEL_THRESHOLD rows.
+ * searchRange() compares a column's values as numbers (or dates), answering from the column's
+ * sorted index with two binary searches instead of scanning.
  * Allows customization of search options such as case sensitivity and exact matching.
  */
 
@@ -26,40 +48,87 @@ public class UtilitySearch {
     ;
   }
 
+  // enum defining the comparisons of a range search
+  public enum Comparison {
+    LT, // below the value
+    LE, // at most the value
+    GT, // above the value
+    GE, // at least the value
+    EQ, // numerically equal to the value
+    BETWEEN, // from the value to the upper bound, inclusive
+    ;
+
+    /**
+     * Looks up a comparison by its name or symbol, e.g. "lt" or "<".
+     *
+     * @param op - the name or symbol, in any case.
+     * @return - the comparison, or null if there is none by that name.
+     */
+    public static Comparison of(String op) {
+      return switch (op.strip().toLowerCase()) {
+        case "lt", "<" -> LT;
+        case "le", "<=" -> LE;
+        case "gt", ">" -> GT;
+        case "ge", ">=" -> GE;
+        case "eq", "=", "==" -> EQ;
+        case "between" -> BETWEEN;
+        default -> null;
+      };
+    }
+  }
+
+  // row count at or above which searchAll() scans in parallel automatically
+  public static final int PARALLEL_THRESHOLD = 100_000;
+  // rows scanned sequentially by one fork-join task; a multiple of 64 so tasks write disjoint words
+  static final int PARALLEL_CHUNK = 1 << 13;
+
   // data fields
-  public List<List<String>> mtrx; // data matrix to be searched
-  public List<Integer> matchedRows; // rows that have been matched
+  public CSVData data; // columnar data to be searched
+  public List<List<String>> mtrx; // row-oriented view of the data
+  public RowBitmap matchedRows; // rows that have been matched
   public HashMap<String, Integer> map; // maps column names to indices if headers are specified
   public Options[] options; // search options
   public int rows; // number of rows in the matrix
   public int cols; // number of columns in the matrix
+  private boolean parallel; // whether searchAll() scans in parallel regardless of size
 
   /**
-   * Constructs a UtilitySearch object with the specified data matrix and search options.
+   * Constructs a UtilitySearch object with the specified columnar data and search options.
    *
-   * @param mtrx - the data matrix to be searched.
+   * @param data - the columnar data to be searched.
    * @param options - the search options to be applied.
    */
-  public UtilitySearch(List<List<String>> mtrx, Options[] options) {
-    this.mtrx = mtrx;
+  public UtilitySearch(CSVData data, Options[] options) {
+    this.data = data;
+    this.mtrx = data.mtrx();
     this.options = options;
-    this.rows = mtrx.size();
-    this.matchedRows = new ArrayList<>();
+    this.rows = data.rowCount();
+    this.matchedRows = new RowBitmap();
     // initializes column count, handle headers if specified
-    if (rows != 0) this.cols = mtrx.get(0).size();
-    else this.cols = 0;
+    this.cols = data.colCount();
 
     if (options[0] == Options.HEADER) {
       // initializes map if headers are specified
       this.map = new HashMap<>();
-      for (int x = 0; x < cols; x++) {
-        map.put(mtrx.get(0).get(x), x);
+      for (int x = 0; x < cols && rows != 0; x++) {
+        String header = data.get(0, x);
+        if (header != null) map.put(header, x);
       }
     } else {
       this.map = null;
     }
   }
 
+  /**
+   * Constructs a UtilitySearch object with the specified data matrix and search options.
+   *
+   * @param mtrx - the data matrix to be searched.
+   * @param options - the search options to be applied.
+   */
+  public UtilitySearch(List<List<String>> mtrx, Options[] options) {
+    this(new CSVData(mtrx), options);
+  }
+
   /**
    * Constructs a UtilitySearch object with the specified data matrix and default search options.
    *
@@ -85,9 +154,19 @@ public class UtilitySearch {
       System.err.println("Error when converting column: " + e.getMessage());
       return -1;
     }
-    // iterate through rows and check for matches
+    // exact matches are looked up in the column's inverted index
+    if (indexed(col)) {
+      int row = data.exactIndex(col, options[1] == Options.CASE_SEN)
+          .firstRow(value, options[0].ordinal(), this.matchedRows::contains);
+      if (row >= 0) {
+        this.matchedRows.add(row);
+      }
+      return row;
+    }
+    // iterate through the rows of the column and check for matches
+    IntPredicate matches = matcher(searchColumn(col), prepare(value));
     for (int row = options[0].ordinal(); row < rows; row++) {
-      if (match(mtrx.get(row).get(col), value) && !this.matchedRows.contains(row)) {
+      if (matches.test(row) && !this.matchedRows.contains(row)) {
         this.matchedRows.add(row);
         return row;
       }
@@ -124,18 +203,381 @@ public class UtilitySearch {
    * @return - the row index where the value is found, or -1 if not found.
    */
   public int search(String value) {
+    IntPredicate[] matchers = matchers(prepare(value));
     // iterate through all rows and columns and check for matches
     for (int row = options[0].ordinal(); row < rows; row++) {
-      for (int col = 0; col < cols; col++) {
-        if (match(mtrx.get(row).get(col), value) && !this.matchedRows.contains(row)) {
-          this.matchedRows.add(row);
-          return row;
-        }
+      if (rowMatches(matchers, row) && !this.matchedRows.contains(row)) {
+        this.matchedRows.add(row);
+        return row;
       }
     }
     return -1;
   }
 
+  /**
+   * Finds every row whose cell in the specified column matches the value, in a single pass.
+   * Does not consult or update matchedRows.
+   *
+   * @param value - the value to search for.
+   * @param colStr - the column identifier (either index or name) to search within.
+   * @return - the set of matching row indices; empty if none match or the column is invalid.
+   */
+  public RowBitmap searchAll(String value, String colStr) {
+    RowBitmap found = new RowBitmap();
+    int col;
+    try {
+      col = convertStringToInt(colStr); // convert column string to integer index
+    } catch (ColumnConversionException e) {
+      System.err.println("Error when converting column: " + e.getMessage());
+      return found;
+    }
+    int start = options[0].ordinal();
+    // exact matches are looked up in the column's inverted index
+    if (indexed(col)) {
+      return data.exactIndex(col, options[1] == Options.CASE_SEN).bitmap(value)
+          .andNot(RowBitmap.range(0, start));
+    }
+    IntPredicate matches = matcher(searchColumn(col), prepare(value));
+    // substring matches only need to check the rows holding every trigram of the value
+    TrigramIndex trigrams = options[2] != Options.MTCH_LOCK && TrigramIndex.supports(value)
+        ? data.trigramIndex(col) : null;
+    if (trigrams != null) {
+      for (int row : trigrams.candidates(value)) {
+        if (row >= start && matches.test(row)) found.add(row);
+      }
+      return found;
+    }
+    return scan(start, matches);
+  }
+
+  /**
+   * Finds every row with a cell in any column that matches the value, in a single pass.
+   * Does not consult or update matchedRows.
+   *
+   * @param value - the value to search for.
+   * @return - the set of matching row indices; empty if none match.
+   */
+  public RowBitmap searchAll(String value) {
+    RowBitmap found = new RowBitmap();
+    int start = options[0].ordinal();
+    IntPredicate[] matchers = matchers(prepare(value));
+    // substring matches only need to check the rows holding every trigram of the value
+    TrigramIndex trigrams =
+        options[2] != Options.MTCH_LOCK && TrigramIndex.supports(value) ? data.trigramIndex(-1) : null;
+    if (trigrams != null) {
+      for (int row : trigrams.candidates(value)) {
+        if (row >= start && rowMatches(matchers, row)) found.add(row);
+      }
+      return found;
+    }
+    return scan(start, row -> rowMatches(matchers, row));
+  }
+
+  /**
+   * Finds every row whose cell in the specified column compares with the value as requested,
+   * reading the column's cells as numbers, or as dates in a date column. Cells that are not
+   * numbers never match. Answered from the column's sorted index in O(log n + k) for k matches.
+   *
+   * @param op - the comparison to make.
+   * @param value - the value to compare against; the lower bound for BETWEEN.
+   * @param to - the upper bound for BETWEEN; ignored otherwise.
+   * @param colStr - the column identifier (either index or name) to search within.
+   * @return - the set of matching row indices.
+   * @throws ColumnConversionException - if the column is invalid.
+   * @throws NumberFormatException - if a bound is not a number (or date), or BETWEEN has no upper bound.
+   */
+  public RowBitmap searchRange(Comparison op, String value, String to, String colStr)
+      throws ColumnConversionException {
+    return rangeFilter(op, value, to, colStr).rows();
+  }
+
+  /**
+   * Compiles a text search, as by searchAll(), into a filter that can either collect its rows or
+   * test single rows, and that knows roughly how many rows it matches.
+   *
+   * @param value - the value to search for.
+   * @param colStr - the column identifier (either index or name) to search within, or null for any column.
+   * @return - the filter.
+   * @throws ColumnConversionException - if the column is invalid.
+   */
+  public RowFilter textFilter(String value, String colStr) throws ColumnConversionException {
+    int start = options[0].ordinal();
+    String val = prepare(value);
+    if (colStr == null) {
+      IntPredicate[] matchers = matchers(val);
+      TrigramIndex trigrams =
+          options[2] != Options.MTCH_LOCK && TrigramIndex.supports(value) ? data.trigramIndex(-1) : null;
+      int estimate = trigrams == null ? rows - start : trigrams.candidates(value).length;
+      return new RowFilter(estimate, row -> row >= start && rowMatches(matchers, row),
+          () -> searchAll(value));
+    }
+    int col = convertStringToInt(colStr); // convert column string to integer index
+    IntPredicate cells = matcher(searchColumn(col), val);
+    IntPredicate matches = row -> row >= start && cells.test(row);
+    int estimate;
+    if (indexed(col)) {
+      estimate = data.exactIndex(col, options[1] == Options.CASE_SEN).count(value);
+    } else {
+      TrigramIndex trigrams = options[2] != Options.MTCH_LOCK && TrigramIndex.supports(value)
+          ? data.trigramIndex(col) : null;
+      estimate = trigrams == null ? rows - start : trigrams.candidates(value).length;
+    }
+    return new RowFilter(estimate, matches, () -> searchAll(value, colStr));
+  }
+
+  /**
+   * Compiles a comparison, as by searchRange(), into a filter that can either collect its rows or
+   * test single rows, and that knows exactly how many rows it matches.
+   *
+   * @param op - the comparison to make.
+   * @param value - the value to compare against; the lower bound for BETWEEN.
+   * @param to - the upper bound for BETWEEN; ignored otherwise.
+   * @param colStr - the column identifier (either index or name) to search within.
+   * @return - the filter.
+   * @throws ColumnConversionException - if the column is invalid.
+   * @throws NumberFormatException - if a bound is not a number (or date), or BETWEEN has no upper bound.
+   */
+  public RowFilter rangeFilter(Comparison op, String value, String to, String colStr)
+      throws ColumnConversionException {
+    int col = convertStringToInt(colStr); // convert column string to integer index
+    SortedIndex index = data.sortedIndex(col);
+    double key = index.key(value);
+    double lo = Double.NEGATIVE_INFINITY;
+    double hi = Double.POSITIVE_INFINITY;
+    boolean loInclusive = true;
+    boolean hiInclusive = true;
+    switch (op) {
+      case LT -> {
+        hi = key;
+        hiInclusive = false;
+      }
+      case LE -> hi = key;
+      case GT -> {
+        lo = key;
+        loInclusive = false;
+      }
+      case GE -> lo = key;
+      case EQ -> {
+        lo = key;
+        hi = key;
+      }
+      case BETWEEN -> {
+        if (to == null) {
+          throw new NumberFormatException("between needs an upper bound");
+        }
+        lo = key;
+        hi = index.key(to);
+      }
+    }
+    int start = options[0].ordinal();
+    double min = lo;
+    double max = hi;
+    boolean minInclusive = loInclusive;
+    boolean maxInclusive = hiInclusive;
+    IntPredicate matches = row -> {
+      double cell = index.value(row); // NaN for cells that are not numbers, which never match
+      return row >= start && (minInclusive ? cell >= min : cell > min)
+          && (maxInclusive ? cell <= max : cell < max);
+    };
+    return new RowFilter(index.count(lo, loInclusive, hi, hiInclusive), matches,
+        () -> RowBitmap.of(index.rows(min, minInclusive, max, maxInclusive))
+            .andNot(RowBitmap.range(0, start)));
+  }
+
+  /**
+   * A compiled search over the rows of the data. A filter can collect every row it matches, using
+   * whatever index its search has, or test single rows, which is cheaper when only a few
+   * candidate rows are left to check. The estimate lets a query plan run selective filters first.
+   */
+  public static final class RowFilter implements IntPredicate {
+    private final int estimate; // rows the filter is expected to match, at most
+    private final IntPredicate matches; // tests a single row
+    private final Supplier<RowBitmap> rows; // collects every matching row
+
+    /**
+     * Constructs a RowFilter.
+     *
+     * @param estimate - an upper bound on the rows the filter matches.
+     * @param matches - tests a single row; must be safe to call from several threads.
+     * @param rows - collects every matching row.
+     */
+    RowFilter(int estimate, IntPredicate matches, Supplier<RowBitmap> rows) {
+      this.estimate = estimate;
+      this.matches = matches;
+      this.rows = rows;
+    }
+
+    /**
+     * Returns an upper bound on the number of rows the filter matches; exact for indexed
+     * exact-match and range searches, the row count for searches that need a full scan.
+     *
+     * @return - the estimate.
+     */
+    public int estimate() {
+      return this.estimate;
+    }
+
+    /**
+     * Tests whether a single row matches.
+     *
+     * @param row - the row index.
+     * @return - true if the row matches.
+     */
+    @Override
+    public boolean test(int row) {
+      return this.matches.test(row);
+    }
+
+    /**
+     * Collects every matching row.
+     *
+     * @return - the set of matching row indices.
+     */
+    public RowBitmap rows() {
+      return this.rows.get();
+    }
+  }
+
+  /**
+   * Sets whether searchAll() scans in parallel even below PARALLEL_THRESHOLD rows.
+   *
+   * @param parallel - true to always scan in parallel.
+   */
+  public void setParallel(boolean parallel) {
+    this.parallel = parallel;
+  }
+
+  /**
+   * Tests every row from the start row onward, splitting the rows across the common ForkJoinPool
+   * when parallel mode is on or the data is large. Results keep row order either way.
+   *
+   * @param start - the first row to test.
+   * @param matches - tests a single row; must be safe to call from several threads.
+   * @return - the set of rows that passed the test.
+   */
+  private RowBitmap scan(int start, IntPredicate matches) {
+    long[] words = new long[(rows + 63) >>> 6];
+    ScanTask task = new ScanTask(start, rows, matches, words);
+    if (parallel || rows >= PARALLEL_THRESHOLD) {
+      ForkJoinPool.commonPool().invoke(task);
+    } else {
+      task.scanRange();
+    }
+    return RowBitmap.fromWords(words);
+  }
+
+  /**
+   * A fork-join task that tests a range of rows, halving it until it is at most PARALLEL_CHUNK
+   * rows. Split points are multiples of 64, so each task sets bits in its own words of the
+   * shared result and no merging or locking is needed.
+   */
+  private static final class ScanTask extends RecursiveAction {
+    private final int lo; // first row of the range
+    private final int hi; // row just past the end of the range
+    private final IntPredicate matches; // tests a single row
+    private final long[] words; // shared result bits, one per row
+
+    ScanTask(int lo, int hi, IntPredicate matches, long[] words) {
+      this.lo = lo;
+      this.hi = hi;
+      this.matches = matches;
+      this.words = words;
+    }
+
+    @Override
+    protected void compute() {
+      int mid = ((lo + hi) >>> 1) & ~63;
+      if (hi - lo <= PARALLEL_CHUNK || mid <= lo) {
+        scanRange();
+        return;
+      }
+      invokeAll(new ScanTask(lo, mid, matches, words), new ScanTask(mid, hi, matches, words));
+    }
+
+    /**
+     * Tests each row in the range sequentially.
+     */
+    void scanRange() {
+      for (int row = lo; row < hi; row++) {
+        if (matches.test(row)) words[row >>> 6] |= 1L << row;
+      }
+    }
+  }
+
+  /**
+   * Determines if any cell of the specified row matches.
+   *
+   * @param matchers - the tests from matchers().
+   * @param row - the row index.
+   * @return - true if some cell in the row matches.
+   */
+  private boolean rowMatches(IntPredicate[] matchers, int row) {
+    for (int col = 0; col < data.width(row); col++) {
+      if (matchers[col].test(row)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns matcher() for every column, resolved once so scans can index it directly.
+   *
+   * @param val - the value to match, already passed through prepare().
+   * @return - the tests, one per column.
+   */
+  private IntPredicate[] matchers(String val) {
+    IntPredicate[] matchers = new IntPredicate[cols];
+    for (int col = 0; col < cols; col++) {
+      matchers[col] = matcher(searchColumn(col), val);
+    }
+    return matchers;
+  }
+
+  /**
+   * Returns whether exact matches on a column are looked up in its inverted index. Typed columns
+   * are scanned instead, since indexing them would format every stored value into a String.
+   *
+   * @param col - the column index.
+   * @return - true for exact-match searches on columns that hold their cells as text.
+   */
+  private boolean indexed(int col) {
+    return options[2] == Options.MTCH_LOCK && !(data.column(col) instanceof TypedColumn);
+  }
+
+  /**
+   * Returns the column that cells should be read from: the lowercase shadow column when case
+   * sensitivity is disabled, so cells need no per-comparison lowercasing.
+   *
+   * @param col - the column index.
+   * @return - the column to compare against.
+   */
+  private CSVColumn searchColumn(int col) {
+    return options[1] == Options.CASE_SEN ? data.column(col) : data.foldedColumn(col);
+  }
+
+  /**
+   * Folds the search value once per search, to match the cells returned by searchColumn().
+   *
+   * @param value - the value to search for.
+   * @return - the value, lowercased if case sensitivity is disabled.
+   */
+  private String prepare(String value) {
+    return options[1] == Options.CASE_SEN ? value : value.toLowerCase();
+  }
+
+  /**
+   * Compiles the comparison of a column's cells with a value under the exact-match option.
+   * Typed columns compare their stored values, so their cells are never built as Strings.
+   *
+   * @param column - the column from searchColumn().
+   * @param val - the value to match, already passed through prepare().
+   * @return - a test of whether the cell at a row matches; null cells never do.
+   */
+  private IntPredicate matcher(CSVColumn column, String val) {
+    return column.matcher(val, options[2] == Options.MTCH_LOCK);
+  }
+
   /**
    * Converts a column identifier (index or name) to its corresponding integer representation.
    *
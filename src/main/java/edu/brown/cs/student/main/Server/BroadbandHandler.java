@@ -1,6 +1,4 @@
 package edu.brown.cs.student.main.Server;
-import com.squareup.moshi.JsonAdapter;
-import com.squareup.moshi.Moshi;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -111,21 +109,7 @@ public class BroadbandHandler implements Route {
          * @return - JSON representation of the response.
          */
         String serialize() {
-            try {
-                // initialize Moshi to serialize the response to JSON
-                Moshi moshi = new Moshi.Builder().build();
-                // create a JSON adapter for CSVSuccessResponse
-                JsonAdapter<BroadbandSuccessResponse> adapter = moshi.adapter(
-                    BroadbandSuccessResponse.class);
-                // serialize the response object to JSON
-                return adapter.toJson(this).replace("\\\"", "\"");
-            } catch (Exception e) {
-                // for debugging purposes, show in the console _why_ this fails
-                // otherwise, we'll just get an error 500 from the API in integration testing
-                // print the stack trace if serialization fails
-                e.printStackTrace();
-                throw e;
-            }
+            return ResponseSerializer.toJson(BroadbandSuccessResponse.class, this);
         }
     }
 
@@ -143,9 +127,7 @@ public class BroadbandHandler implements Route {
          * @return - JSON representation of the response.
          */
         String serialize() {
-            Moshi moshi = new Moshi.Builder().build();
-            return moshi.adapter(BroadbandFailureResponse.class).toJson(this)
-                .replace("\\\"", "\"");
+            return ResponseSerializer.toJson(BroadbandFailureResponse.class, this);
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,164 @@
+package edu.brown.cs.student.main.Server;
+
+import edu.brown.cs.student.main.DataSource.CSVColumn;
+import edu.brown.cs.student.main.DataSource.CSVData;
+import edu.brown.cs.student.main.DataSource.DictionaryColumn;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import spark.Request;
+import spark.Response;
+
+/**
+ * Quick Summary:
+ * Writes CSV rows in a compact binary columnar format, as an alternative to JSON for analytics
+ * clients. Clients ask for it with format=columnar or an Accept header naming CONTENT_TYPE;
+ * routes that offer it send Vary: Accept so shared caches keep the two formats apart.
+ * Columns are written one after another straight from the in-memory dataset; dictionary-encoded
+ * columns keep their dictionary, so each distinct value is sent once followed by one small code
+ * per row.
+ *
+ * Layout (all integers big-endian):
+ *   magic "CSVC", version byte (1), int rows, int cols, then per column:
+ *   kind byte 0 (plain): rows strings;
+ *   kind byte 1 (dictionary): int entries, entries-1 strings for codes 1.., code width byte
+ *   (1, 2 or 4), then rows codes of that width, where code 0 is a missing cell.
+ * A string is an int byte length followed by UTF-8 bytes; length -1 is a missing cell.
+ */
+
+/**
+ * Writes CSV rows in a compact binary columnar format.
+ */
+public final class ColumnarEncoder {
+  // media type of the columnar format
+  public static final String CONTENT_TYPE = "application/vnd.csv-columnar";
+  private static final byte[] MAGIC = {'C', 'S', 'V', 'C'}; // identifies the format
+  private static final byte VERSION = 1; // format version
+  private static final byte PLAIN = 0; // column kind: one string per row
+  private static final byte DICTIONARY = 1; // column kind: dictionary plus one code per row
+
+  private ColumnarEncoder() {}
+
+  /**
+   * Checks whether a request asks for the columnar format.
+   *
+   * @param request - the HTTP request.
+   * @return - true if format=columnar was given or the Accept header names CONTENT_TYPE.
+   */
+  public static boolean requested(Request request) {
+    String format = request.queryParams("format");
+    if (format != null) {
+      return format.equals("columnar");
+    }
+    String accept = request.headers("Accept");
+    return accept != null && accept.contains(CONTENT_TYPE);
+  }
+
+  /**
+   * Marks a response as depending on the Accept header, keeping any fields it already varies on.
+   * Call before the body is written, as streamed bodies commit the headers.
+   *
+   * @param response - the HTTP response of a route that offers the columnar format.
+   */
+  public static void varyOnAccept(Response response) {
+    response.raw().setHeader("Vary", varyOnAccept(response.raw().getHeader("Vary")));
+  }
+
+  /**
+   * Adds Accept to the fields of a Vary header.
+   *
+   * @param vary - the current Vary header, or null.
+   * @return - the header value listing Accept and every field the current one lists.
+   */
+  static String varyOnAccept(String vary) {
+    if (vary == null || vary.isBlank()) {
+      return "Accept";
+    }
+    for (String field : vary.split(",")) {
+      if (field.strip().equalsIgnoreCase("Accept") || field.strip().equals("*")) {
+        return vary;
+      }
+    }
+    return "Accept, " + vary;
+  }
+
+  /**
+   * Writes the specified rows and columns of a dataset to a stream.
+   *
+   * @param data - the dataset.
+   * @param rows - the rows to write, in order.
+   * @param cols - the columns to write, in order.
+   * @param stream - the stream to write to; it is flushed but not closed.
+   * @throws IOException - if the stream cannot be written.
+   */
+  public static void write(CSVData data, int[] rows, int[] cols, OutputStream stream)
+      throws IOException {
+    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream, 1 << 16));
+    out.write(MAGIC);
+    out.writeByte(VERSION);
+    out.writeInt(rows.length);
+    out.writeInt(cols.length);
+    for (int col : cols) {
+      CSVColumn column = data.column(col);
+      // a dictionary only pays off if it is not larger than the rows being sent
+      if (column instanceof DictionaryColumn dictionary && dictionary.dictionarySize() <= rows.length) {
+        writeDictionary(dictionary, rows, out);
+      } else {
+        out.writeByte(PLAIN);
+        for (int row : rows) {
+          writeString(column.get(row), out);
+        }
+      }
+    }
+    out.flush();
+  }
+
+  /**
+   * Writes the selected rows of a dictionary column as its dictionary followed by their codes.
+   *
+   * @param column - the column.
+   * @param rows - the rows to write, in order.
+   * @param out - the stream to write to.
+   * @throws IOException - if the stream cannot be written.
+   */
+  private static void writeDictionary(DictionaryColumn column, int[] rows, DataOutputStream out)
+      throws IOException {
+    int entries = column.dictionarySize();
+    out.writeByte(DICTIONARY);
+    out.writeInt(entries);
+    for (int code = 1; code < entries; code++) {
+      writeString(column.entry(code), out);
+    }
+    int width = entries <= 1 << 8 ? 1 : entries <= 1 << 16 ? 2 : 4;
+    out.writeByte(width);
+    for (int row : rows) {
+      int code = column.code(row);
+      if (width == 1) {
+        out.writeByte(code);
+      } else if (width == 2) {
+        out.writeShort(code);
+      } else {
+        out.writeInt(code);
+      }
+    }
+  }
+
+  /**
+   * Writes a length-prefixed UTF-8 string.
+   *
+   * @param value - the string, or null for a missing cell.
+   * @param out - the stream to write to.
+   * @throws IOException - if the stream cannot be written.
+   */
+  private static void writeString(String value, DataOutputStream out) throws IOException {
+    if (value == null) {
+      out.writeInt(-1);
+      return;
+    }
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+}
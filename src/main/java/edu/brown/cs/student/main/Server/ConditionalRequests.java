@@ -0,0 +1,78 @@
+package edu.brown.cs.student.main.Server;
+
+import edu.brown.cs.student.main.DataSource.CSVData;
+import spark.Request;
+import spark.Response;
+
+/**
+ * Quick Summary:
+ * Supports conditional GETs for responses derived from a loaded dataset.
+ * A response depends only on the request URL, its negotiated format and the dataset, so the ETag
+ * is built from the dataset version (and format); as long as no other dataset has been loaded,
+ * a client presenting that ETag in If-None-Match is answered with 304 Not Modified and no body.
+ * The ETag also names this server process, since dataset versions restart when the server does.
+ * ETags are weak, so the gzip, deflate and identity encodings of a response share one ETag.
+ */
+
+/**
+ * Supports conditional GETs for responses derived from a loaded dataset.
+ */
+public final class ConditionalRequests {
+  // distinguishes this process's dataset versions from those of earlier runs
+  private static final String EPOCH = Long.toHexString(System.currentTimeMillis());
+
+  private ConditionalRequests() {}
+
+  /**
+   * Tags the response with the dataset's ETag and checks the request's If-None-Match against it.
+   * If the client's copy is current, the response status is set to 304 and the caller should
+   * return an empty body.
+   *
+   * @param request - the HTTP request.
+   * @param response - the HTTP response.
+   * @param data - the dataset the response is derived from.
+   * @return - true if the client's copy is current.
+   */
+  public static boolean notModified(Request request, Response response, CSVData data) {
+    String etag = etag(data, ColumnarEncoder.requested(request));
+    response.header("ETag", etag);
+    if (matches(request.headers("If-None-Match"), etag)) {
+      response.status(304);
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Returns the ETag of responses derived from a dataset.
+   *
+   * @param data - the dataset.
+   * @param columnar - whether the response is in the columnar format.
+   * @return - the weak ETag.
+   */
+  static String etag(CSVData data, boolean columnar) {
+    return "W/\"" + EPOCH + "-" + data.version() + (columnar ? "-columnar" : "") + "\"";
+  }
+
+  /**
+   * Checks an If-None-Match header against an ETag, using weak comparison.
+   *
+   * @param ifNoneMatch - the header value, or null if absent.
+   * @param etag - the current ETag.
+   * @return - true if the header lists the ETag or is "*".
+   */
+  static boolean matches(String ifNoneMatch, String etag) {
+    if (ifNoneMatch == null) {
+      return false;
+    }
+    String opaque = etag.startsWith("W/") ? etag.substring(2) : etag;
+    for (String candidate : ifNoneMatch.split(",")) {
+      candidate = candidate.trim();
+      if (candidate.equals("*")
+          || (candidate.startsWith("W/") ? candidate.substring(2) : candidate).equals(opaque)) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
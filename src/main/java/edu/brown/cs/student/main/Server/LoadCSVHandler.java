@@ -1,22 +1,34 @@
 package edu.brown.cs.student.main.Server;
-import com.squareup.moshi.JsonAdapter;
-import com.squareup.moshi.Moshi;
 import edu.brown.cs.student.main.DataSource.CSVDataSource;
 import edu.brown.cs.student.main.Exceptions.DatasourceException;
 import edu.brown.cs.student.main.Exceptions.FactoryFailureException;
 import edu.brown.cs.student.main.ParserUtils.CSVParser;
+import edu.brown.cs.student.main.ParserUtils.MappedCSVParser;
+import edu.brown.cs.student.main.ParserUtils.ParallelCSVParser;
+import edu.brown.cs.student.main.CreatorFromRow.CreatorFromRow;
+import edu.brown.cs.student.main.CreatorFromRow.InterningCreatorFromRow;
 import edu.brown.cs.student.main.CreatorFromRow.StrListCreatorFromRow;
 import edu.brown.cs.student.main.Server.ViewCSVHandler.CSVFailureResponse;
 import edu.brown.cs.student.main.Server.ViewCSVHandler.CSVSuccessResponse;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import spark.Request;
 import spark.Response;
 import spark.Route;
 
 import java.io.BufferedReader;
-import java.io.FileNotFoundException;
-import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -24,18 +36,38 @@ import java.util.stream.Collectors;
  * Quick Summary:
  * Awaits requests to load specific CSV files.
  * Retrieves the file path from request query parameters.
+ * With intern=true, repeated cell values are shared per column while parsing, and the response
+ * (or the job's status) reports the dictionary hits, misses and hit rate.
+ * With types=true, numeric and date columns are stored as primitive values, their types inferred
+ * from a sample of each column; cells still read back exactly as they appear in the file.
  * Attempts to open the specified file.
- * Initializes a CSV parser capable of deserializing CSV data.
+ * Initializes a CSV parser capable of deserializing CSV data; large files are memory-mapped and
+ * tokenized as UTF-8 bytes, small files are read through a UTF-8 reader, and very large files
+ * are split into ranges that are tokenized on all cores (unless interning, which is single-threaded).
  * Processes the file's content, transforming it into a data matrix.
- * Retains the parsed data for further use.
+ * Retains the parsed data for further use, as the current matrix or under the name parameter.
  * Provides the parsed data as the HTTP response.
+ * With async=true, returns a job id at once and parses on a background loader thread; the new
+ * dataset is swapped in when parsing finishes, and /loadstatus reports the job's progress.
  */
 
 /**
  * This class implements the Route interface to handle HTTP requests for loading CSV files.
  */
 public class LoadCSVHandler implements Route {
+    // files at least this many bytes long are loaded through a memory-mapped parser
+    static final long MAPPED_LOAD_THRESHOLD = 1 << 20;
+    // files at least this many bytes long are split into ranges parsed concurrently
+    static final long PARALLEL_LOAD_THRESHOLD = 2 * ParallelCSVParser.DEFAULT_CHUNK_SIZE;
+
+    // loads that may run in the background at once; each holds a whole file in memory
+    static final int LOADER_THREADS = 2;
+    // finished and running jobs remembered for /loadstatus
+    static final int MAX_JOBS = 100;
+
     private CSVDataSource source;
+    private final ExecutorService loader; // runs async loads
+    private final Map<String, LoadJob> jobs; // recent async loads by id, oldest first
 
     /**
      * Constructor injects a CSVDataSource object for data management.
@@ -44,6 +76,14 @@ public class LoadCSVHandler implements Route {
      */
     public LoadCSVHandler(CSVDataSource source){
         this.source = source;
+        this.loader = Executors.newFixedThreadPool(LOADER_THREADS,
+                new ThreadFactoryBuilder().setNameFormat("csv-loader-%d").setDaemon(true).build());
+        this.jobs = Collections.synchronizedMap(new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, LoadJob> eldest) {
+                return size() > MAX_JOBS;
+            }
+        });
     }
 
     /**
@@ -63,28 +103,155 @@ public class LoadCSVHandler implements Route {
             return new CSVFailureResponse("error", "Filepath unspecified").serialize();
         }
         // attempt to open the CSV file
-        FileReader reader = null;
-        try {
-            reader = new FileReader(filepath);
-        } catch (FileNotFoundException e) {
+        Path path = Paths.get(filepath);
+        if (!Files.isRegularFile(path)) {
             return new CSVFailureResponse("error", "Filepath " + filepath +
                     " not found").serialize();
         }
-        // create a CSVParser object with BufferedReader and StrListCreatorFromRow for deserialization
-        CSVParser<List<String>> parser = new CSVParser<>(new BufferedReader(reader), new StrListCreatorFromRow());
+        // share repeated cell values per column if requested
+        InterningCreatorFromRow interner = "true".equals(request.queryParams("intern"))
+                ? new InterningCreatorFromRow() : null;
+        String name = request.queryParams("name");
+        boolean types = "true".equals(request.queryParams("types"));
+
+        if ("true".equals(request.queryParams("async"))) {
+            // parse on a loader thread and report back immediately with a job to poll
+            LoadJob job;
+            try {
+                job = new LoadJob(UUID.randomUUID().toString(), filepath, name, Files.size(path));
+            } catch (IOException e) {
+                return new CSVFailureResponse("error", "Filepath " + filepath +
+                        " could not be read").serialize();
+            }
+            jobs.put(job.id(), job);
+            loader.execute(() -> {
+                try {
+                    String error = load(path, filepath, name, interner, types, job);
+                    if (interner != null) {
+                        job.interned(interner.stats());
+                    }
+                    job.finished(error);
+                } catch (RuntimeException e) {
+                    job.finished("Load failed: " + e);
+                    e.printStackTrace();
+                } catch (Error e) {
+                    // e.g. OutOfMemoryError on a file the heap cannot hold; the job still has to end
+                    job.finished("Load failed: " + e);
+                    throw e;
+                }
+            });
+            return new LoadAcceptedResponse("accepted", filepath, name, job.id()).serialize();
+        }
+
+        String error = load(path, filepath, name, interner, types, null);
+        if (error != null) {
+            return new CSVFailureResponse("error", error).serialize();
+        }
+        // return the parsed data string response
+
+        return new CSVSuccessResponse("success", filepath, name,
+                interner == null ? null : interner.stats()).serialize();
+    }
+
+    /**
+     * Handles a request for the progress of a load started with async=true.
+     *
+     * @param request - the HTTP request object.
+     * @param response - the HTTP response object.
+     * @return - the serialized progress of the job.
+     */
+    public Object handleStatus(Request request, Response response) {
+        String id = request.queryParams("job");
+        LoadJob job = id == null ? null : jobs.get(id);
+        if (job == null) {
+            return new CSVFailureResponse("error", id == null
+                    ? "Job unspecified" : "Load job '" + id + "' not found").serialize();
+        }
+        return job.status().serialize();
+    }
+
+    /**
+     * Parses a CSV file and stores it in the data source.
+     *
+     * @param path - the file to parse.
+     * @param filepath - the file path, for messages.
+     * @param name - the dataset name, or null for the current matrix.
+     * @param interner - shares repeated cell values per column, or null to not intern.
+     * @param types - whether to store numeric and date columns as primitive values.
+     * @param job - the job to report progress to, or null when loading synchronously.
+     * @return - an error message, or null if the file was loaded.
+     */
+    String load(Path path, String filepath, String name, InterningCreatorFromRow interner,
+            boolean types, LoadJob job) {
+        CreatorFromRow<List<String>> base = interner != null ? interner : new StrListCreatorFromRow();
+        CreatorFromRow<List<String>> creator = job == null ? base : row -> {
+            job.rowParsed();
+            return base.create(row);
+        };
         // parse the CSV file and capture the parsed data matrix.
         List<List<String>> mtrx = null;
         try {
-            mtrx = parser.parse();
+            if (Files.size(path) >= PARALLEL_LOAD_THRESHOLD && interner == null
+                    && Runtime.getRuntime().availableProcessors() > 1) {
+                // tokenize byte ranges of the file on all cores; the interner is not thread-safe
+                ParallelCSVParser<List<String>> parser = new ParallelCSVParser<>(path, creator);
+                if (job != null) {
+                    job.parsing(parser::bytesRead);
+                }
+                mtrx = parser.parse();
+            } else if (Files.size(path) >= MAPPED_LOAD_THRESHOLD) {
+                // tokenize UTF-8 bytes straight out of a memory-mapped region
+                MappedCSVParser<List<String>> parser = new MappedCSVParser<>(path, creator);
+                if (job != null) {
+                    job.parsing(parser::bytesRead);
+                }
+                mtrx = parser.parse();
+            } else {
+                // create a CSVParser object with a UTF-8 BufferedReader and the row creator for deserialization;
+                // malformed bytes decode to replacement characters, as in the mapped parser
+                BufferedReader reader = job == null
+                        ? new BufferedReader(new InputStreamReader(Files.newInputStream(path), StandardCharsets.UTF_8))
+                        : new BufferedReader(new InputStreamReader(
+                                job.counting(Files.newInputStream(path)), StandardCharsets.UTF_8));
+                CSVParser<List<String>> parser = new CSVParser<>(reader, creator);
+                mtrx = parser.parse();
+            }
+        } catch (IOException e) {
+            return "Filepath " + filepath + " could not be read";
         } catch (FactoryFailureException e) {
-            return new CSVFailureResponse("error", "Parse error").serialize();
+            return "Parse error";
         }
 
-        // store the parsed data in the CSVDataSource object
-        source.setCurrentMatrix(mtrx);
-        // return the parsed data string response
+        // store the parsed data in the CSVDataSource object, under its name if one was given
+        if (job != null) {
+            job.storing();
+        }
+        try {
+            source.setMatrix(name, mtrx, types);
+        } catch (DatasourceException e) {
+            return e.getMessage();
+        }
+        return null;
+    }
+
+    /**
+     * Represents the response to a load started in the background.
+     *
+     * @param result - the type of the response.
+     * @param filepath - the filepath being loaded.
+     * @param name - the name the dataset will be loaded under, or null for the current matrix.
+     * @param job - the job to poll /loadstatus with.
+     */
+    public record LoadAcceptedResponse(String result, String filepath, String name, String job) {
 
-        return new CSVSuccessResponse(filepath).serialize();
+        /**
+         * Serializes the LoadAcceptedResponse to JSON.
+         *
+         * @return - JSON representation of the response.
+         */
+        String serialize() {
+            return ResponseSerializer.toJson(LoadAcceptedResponse.class, this);
+        }
     }
 
     /**
@@ -92,8 +259,11 @@ public class LoadCSVHandler implements Route {
      *
      * @param result - the type of the response.
      * @param filepath - the filepath containing CSV data.
+     * @param name - the name the dataset was loaded under, or null for the current matrix.
+     * @param interning - the dictionary statistics of an intern=true load, or null.
      */
-    public record CSVSuccessResponse(String result, String filepath) {
+    public record CSVSuccessResponse(String result, String filepath, String name,
+            InterningCreatorFromRow.Stats interning) {
 
         /**
          * Constructs a CSVSuccessResponse with the given response map.
@@ -101,7 +271,7 @@ public class LoadCSVHandler implements Route {
          * @param filepath - the filepath containing CSV data.
          */
         public CSVSuccessResponse(String filepath) {
-            this("success", filepath);
+            this("success", filepath, null, null);
         }
 
         /**
@@ -110,20 +280,7 @@ public class LoadCSVHandler implements Route {
          * @return - JSON representation of the response.
          */
         String serialize() {
-            try {
-                // initialize Moshi to serialize the response to JSON
-                Moshi moshi = new Moshi.Builder().build();
-                // create a JSON adapter for CSVSuccessResponse
-                JsonAdapter<CSVSuccessResponse> adapter = moshi.adapter(CSVSuccessResponse.class);
-                // serialize the response object to JSON
-                return adapter.toJson(this).replace("\\\"", "\"");
-            } catch (Exception e) {
-                // for debugging purposes, show in the console _why_ this fails
-                // otherwise, we'll just get an error 500 from the API in integration testing
-                // print stack trace if the serialization fails
-                e.printStackTrace();
-                throw e;
-            }
+            return ResponseSerializer.toJson(CSVSuccessResponse.class, this);
         }
     }
 
@@ -141,10 +298,7 @@ public class LoadCSVHandler implements Route {
          * @return - JSON representation of the response.
          */
         String serialize() {
-            // initialize Moshi to serialize the response to JSON
-            Moshi moshi = new Moshi.Builder().build();
-            // serialize the response object to JSON
-            return moshi.adapter(CSVFailureResponse.class).toJson(this).replace("\\\"", "\"");
+            return ResponseSerializer.toJson(CSVFailureResponse.class, this);
         }
     }
 }
\ No newline at end of file
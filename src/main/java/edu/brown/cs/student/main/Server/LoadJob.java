@@ -0,0 +1,202 @@
+package edu.brown.cs.student.main.Server;
+
+import edu.brown.cs.student.main.CreatorFromRow.InterningCreatorFromRow;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Quick Summary:
+ * Tracks one CSV load running in the background for /loadcsv?async=true.
+ * Counts the rows parsed and the bytes read so far, so /loadstatus can report progress and
+ * throughput while the load is still running. Every field is safe to read from other threads.
+ */
+
+/**
+ * Tracks one CSV load running in the background.
+ */
+public final class LoadJob {
+
+  /**
+   * The stages a load goes through.
+   */
+  public enum State {
+    QUEUED, // waiting for a loader thread
+    PARSING, // reading and parsing the file
+    STORING, // building the columnar dataset and publishing it
+    DONE, // the dataset is loaded
+    FAILED, // the load stopped with an error
+  }
+
+  private final String id; // identifies the job in /loadstatus requests
+  private final String filepath; // the file being loaded
+  private final String name; // the dataset name, or null for the current matrix
+  private final long totalBytes; // size of the file
+  private final AtomicLong rows = new AtomicLong(); // rows parsed so far
+  private volatile LongSupplier bytesRead = () -> 0; // bytes of the file consumed so far
+  private volatile State state = State.QUEUED; // the current stage
+  private volatile String error; // why the load failed, if it did
+  private volatile InterningCreatorFromRow.Stats interning; // dictionary statistics, if interning
+  private volatile long startNanos; // when parsing started
+  private volatile long endNanos; // when the load finished, or 0 while it is running
+
+  /**
+   * Constructs a queued LoadJob.
+   *
+   * @param id - identifies the job.
+   * @param filepath - the file to load.
+   * @param name - the dataset name, or null for the current matrix.
+   * @param totalBytes - the size of the file.
+   */
+  public LoadJob(String id, String filepath, String name, long totalBytes) {
+    this.id = id;
+    this.filepath = filepath;
+    this.name = name;
+    this.totalBytes = totalBytes;
+  }
+
+  /**
+   * Returns the job's identifier.
+   *
+   * @return - the identifier.
+   */
+  public String id() {
+    return this.id;
+  }
+
+  /**
+   * Returns the job's current stage.
+   *
+   * @return - the stage.
+   */
+  public State state() {
+    return this.state;
+  }
+
+  /**
+   * Marks the start of parsing.
+   *
+   * @param bytesRead - reports the bytes of the file consumed so far.
+   */
+  void parsing(LongSupplier bytesRead) {
+    this.bytesRead = bytesRead;
+    this.startNanos = System.nanoTime();
+    this.state = State.PARSING;
+  }
+
+  /**
+   * Counts one parsed row.
+   */
+  void rowParsed() {
+    this.rows.incrementAndGet();
+  }
+
+  /**
+   * Marks the end of parsing and the start of storing the dataset.
+   */
+  void storing() {
+    this.state = State.STORING;
+  }
+
+  /**
+   * Records the dictionary statistics of a load that interned its cells.
+   *
+   * @param interning - the statistics.
+   */
+  void interned(InterningCreatorFromRow.Stats interning) {
+    this.interning = interning;
+  }
+
+  /**
+   * Marks the job as finished.
+   *
+   * @param error - why the load failed, or null if it succeeded.
+   */
+  void finished(String error) {
+    this.error = error;
+    this.endNanos = System.nanoTime();
+    this.state = error == null ? State.DONE : State.FAILED;
+  }
+
+  /**
+   * Wraps a stream so that the bytes read through it count towards this job's progress.
+   *
+   * @param in - the stream to count.
+   * @return - the counting stream.
+   */
+  InputStream counting(InputStream in) {
+    AtomicLong count = new AtomicLong();
+    parsing(count::get);
+    return new FilterInputStream(in) {
+      @Override
+      public int read() throws IOException {
+        int b = super.read();
+        if (b >= 0) {
+          count.incrementAndGet();
+        }
+        return b;
+      }
+
+      @Override
+      public int read(byte[] b, int off, int len) throws IOException {
+        int n = super.read(b, off, len);
+        if (n > 0) {
+          count.addAndGet(n);
+        }
+        return n;
+      }
+    };
+  }
+
+  /**
+   * Returns a snapshot of the job's progress.
+   *
+   * @return - the progress, ready to serialize.
+   */
+  public LoadStatusResponse status() {
+    State state = this.state;
+    long start = this.startNanos;
+    long end = this.endNanos;
+    long bytes = state == State.QUEUED ? 0 : this.bytesRead.getAsLong();
+    long rows = this.rows.get();
+    long elapsedNanos = start == 0 ? 0 : (end == 0 ? System.nanoTime() : end) - start;
+    double seconds = elapsedNanos / 1e9;
+    return new LoadStatusResponse("success", id, state.name().toLowerCase(), filepath, name,
+        rows, bytes, totalBytes, elapsedNanos / 1_000_000,
+        seconds > 0 ? bytes / seconds : 0, seconds > 0 ? rows / seconds : 0, interning, error);
+  }
+
+  /**
+   * Represents the progress of a load.
+   *
+   * @param result - the type of the response.
+   * @param job - the job's identifier.
+   * @param state - the job's current stage.
+   * @param filepath - the file being loaded.
+   * @param name - the dataset name, or null for the current matrix.
+   * @param rowsParsed - the rows parsed so far.
+   * @param bytesRead - the bytes of the file consumed so far.
+   * @param totalBytes - the size of the file.
+   * @param elapsedMillis - the time spent since parsing started.
+   * @param bytesPerSecond - the average parsing throughput in bytes.
+   * @param rowsPerSecond - the average parsing throughput in rows.
+   * @param interning - the dictionary statistics of an intern=true load once parsed, or null.
+   * @param msg - why the load failed, or null.
+   */
+  public record LoadStatusResponse(String result, String job, String state, String filepath,
+      String name, long rowsParsed, long bytesRead, long totalBytes, long elapsedMillis,
+      double bytesPerSecond, double rowsPerSecond, InterningCreatorFromRow.Stats interning,
+      String msg) {
+
+    /**
+     * Serializes the LoadStatusResponse to JSON.
+     *
+     * @return - JSON representation of the response.
+     */
+    String serialize() {
+      return ResponseSerializer.toJson(LoadStatusResponse.class, this);
+    }
+  }
+}
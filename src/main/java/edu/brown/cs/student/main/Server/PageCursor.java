@@ -0,0 +1,58 @@
+package edu.brown.cs.student.main.Server;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Quick Summary:
+ * An opaque token naming the next page of a paginated /viewcsv request.
+ * Carries the offset of the next row together with the page size and column projection of the
+ * request that produced it, so clients only need to send the token back to continue.
+ * Also records which dataset it was issued for, so a token is rejected once a different CSV
+ * has been loaded instead of silently paging through the new data.
+ */
+
+/**
+ * An opaque token naming the next page of a paginated /viewcsv request.
+ *
+ * @param offset - the first row of the page.
+ * @param limit - the maximum number of rows in the page.
+ * @param cols - the requested column projection, or null for every column.
+ * @param dataset - the version of the dataset the cursor was issued for.
+ */
+public record PageCursor(int offset, int limit, String cols, long dataset) {
+
+  /**
+   * Encodes the cursor as a URL-safe token.
+   *
+   * @return - the token.
+   */
+  public String encode() {
+    String plain = offset + ":" + limit + ":" + dataset + ":" + (cols == null ? "" : cols);
+    return Base64.getUrlEncoder().withoutPadding()
+        .encodeToString(plain.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Decodes a token produced by encode().
+   *
+   * @param token - the token.
+   * @return - the cursor.
+   * @throws IllegalArgumentException - if the token is malformed.
+   */
+  public static PageCursor decode(String token) {
+    try {
+      String plain = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+      String[] parts = plain.split(":", 4);
+      int offset = Integer.parseInt(parts[0]);
+      int limit = Integer.parseInt(parts[1]);
+      long dataset = Long.parseLong(parts[2]);
+      if (offset < 0 || limit <= 0) {
+        throw new IllegalArgumentException("Malformed cursor");
+      }
+      return new PageCursor(offset, limit, parts[3].isEmpty() ? null : parts[3], dataset);
+    } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+      throw new IllegalArgumentException("Malformed cursor", e);
+    }
+  }
+}
@@ -0,0 +1,224 @@
+package edu.brown.cs.student.main.Server;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+import spark.Request;
+import spark.Response;
+
+/**
+ * Quick Summary:
+ * Compresses HTTP responses with gzip or deflate when the client's Accept-Encoding allows it.
+ * Installed as a pair of Spark filters: the before filter makes the settings available to routes
+ * that stream their body (see open()), and the after filter compresses bodies that routes return
+ * as a String. Responses smaller than the minimum size are sent uncompressed, so small replies do
+ * not pay for compression; streamed bodies are buffered only until they reach that size.
+ */
+
+/**
+ * Compresses HTTP responses with gzip or deflate when the client accepts it.
+ */
+public final class ResponseCompression {
+  // default size, in bytes, below which responses are sent uncompressed
+  public static final int DEFAULT_MIN_SIZE = 1 << 10;
+  // request attribute under which the installed settings are stored
+  private static final String ATTRIBUTE = ResponseCompression.class.getName();
+
+  private final int minSize; // size, in bytes, below which responses are sent uncompressed
+  private final int level; // Deflater compression level
+
+  /**
+   * Constructs ResponseCompression with the specified settings.
+   *
+   * @param minSize - size, in bytes, below which responses are sent uncompressed.
+   * @param level - the compression level, 0-9, or Deflater.DEFAULT_COMPRESSION.
+   */
+  public ResponseCompression(int minSize, int level) {
+    this.minSize = minSize;
+    this.level = level;
+  }
+
+  /**
+   * Before filter: makes the settings available to the route handling this request.
+   *
+   * @param request - the HTTP request.
+   * @param response - the HTTP response.
+   */
+  public void install(Request request, Response response) {
+    request.attribute(ATTRIBUTE, this);
+    response.header("Vary", "Accept-Encoding");
+  }
+
+  /**
+   * After filter: compresses a String body the route returned, if it is large enough and the
+   * client accepts compression. Bodies that were already streamed are left alone.
+   *
+   * @param request - the HTTP request.
+   * @param response - the HTTP response.
+   * @throws IOException - if the body cannot be written.
+   */
+  public void compressBody(Request request, Response response) throws IOException {
+    String body = response.body();
+    if (body == null || response.raw().isCommitted()
+        || response.raw().getHeader("Content-Encoding") != null) {
+      return;
+    }
+    byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+    String encoding = negotiate(request.headers("Accept-Encoding"));
+    if (encoding == null || bytes.length < minSize) {
+      return;
+    }
+    if (response.raw().getContentType() == null) {
+      // the content type Spark would have given the body
+      response.type("text/html;charset=utf-8");
+    }
+    // writing the body commits the response, so Spark does not write it again
+    try (OutputStream out = new CompressingStream(response, encoding, level, 0)) {
+      out.write(bytes);
+    }
+  }
+
+  /**
+   * Opens the body of a response for a route that streams its output. The body is compressed
+   * if compression is installed, the client accepts it and the body reaches the minimum size.
+   * The returned stream must be closed to finish the body.
+   *
+   * @param request - the HTTP request.
+   * @param response - the HTTP response.
+   * @return - the stream to write the body to.
+   * @throws IOException - if the response stream cannot be opened.
+   */
+  public static OutputStream open(Request request, Response response) throws IOException {
+    ResponseCompression settings = request.attribute(ATTRIBUTE);
+    String encoding = settings == null ? null : negotiate(request.headers("Accept-Encoding"));
+    if (encoding == null) {
+      return response.raw().getOutputStream();
+    }
+    return new CompressingStream(response, encoding, settings.level, settings.minSize);
+  }
+
+  /**
+   * Picks the content coding to use for an Accept-Encoding header.
+   *
+   * @param acceptEncoding - the header value, or null if absent.
+   * @return - "gzip" or "deflate", or null if the client accepts neither.
+   */
+  static String negotiate(String acceptEncoding) {
+    if (acceptEncoding == null) {
+      return null;
+    }
+    boolean deflate = false;
+    for (String coding : acceptEncoding.split(",")) {
+      String[] parts = coding.split(";");
+      String name = parts[0].trim().toLowerCase();
+      boolean accepted = true;
+      for (int i = 1; i < parts.length; i++) {
+        String param = parts[i].trim();
+        if (param.startsWith("q=")) {
+          try {
+            accepted = Double.parseDouble(param.substring(2)) > 0;
+          } catch (NumberFormatException e) {
+            accepted = false;
+          }
+        }
+      }
+      if (accepted && (name.equals("gzip") || name.equals("*"))) {
+        return "gzip";
+      }
+      deflate |= accepted && name.equals("deflate");
+    }
+    return deflate ? "deflate" : null;
+  }
+
+  /**
+   * A response body that is buffered until it reaches the minimum size, then compressed.
+   * A body closed before reaching the minimum size is written uncompressed.
+   */
+  private static final class CompressingStream extends OutputStream {
+    private final Response response; // the response being written
+    private final String encoding; // the content coding to compress with
+    private final int level; // Deflater compression level
+    private final int minSize; // size at which compression starts
+    private ByteArrayOutputStream pending = new ByteArrayOutputStream(); // body so far, until started
+    private OutputStream out; // where the body goes once started
+    private Deflater deflater; // the compressor, released when the body is finished
+
+    CompressingStream(Response response, String encoding, int level, int minSize) {
+      this.response = response;
+      this.encoding = encoding;
+      this.level = level;
+      this.minSize = minSize;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      write(new byte[] {(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      if (out != null) {
+        out.write(b, off, len);
+        return;
+      }
+      pending.write(b, off, len);
+      if (pending.size() >= minSize) {
+        start(true);
+      }
+    }
+
+    @Override
+    public void flush() throws IOException {
+      // while buffering, flushing would commit the response before the encoding is known
+      if (out != null) {
+        out.flush();
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (out == null) {
+        start(false);
+      }
+      if (out instanceof DeflaterOutputStream compressed) {
+        compressed.finish();
+      }
+      out.flush();
+      if (deflater != null) {
+        deflater.end();
+      }
+    }
+
+    /**
+     * Sets the headers and sends the buffered body, compressed or not.
+     *
+     * @param compress - whether to compress the body.
+     * @throws IOException - if the response stream cannot be written.
+     */
+    private void start(boolean compress) throws IOException {
+      OutputStream raw = response.raw().getOutputStream();
+      if (compress) {
+        response.header("Content-Encoding", encoding);
+        if (encoding.equals("gzip")) {
+          out = new GZIPOutputStream(raw, 1 << 13) {
+            {
+              def.setLevel(level);
+              deflater = def;
+            }
+          };
+        } else {
+          deflater = new Deflater(level);
+          out = new DeflaterOutputStream(raw, deflater, 1 << 13);
+        }
+      } else {
+        out = raw;
+      }
+      pending.writeTo(out);
+      pending = null;
+    }
+  }
+}
@@ -0,0 +1,56 @@
+package edu.brown.cs.student.main.Server;
+
+import com.squareup.moshi.JsonAdapter;
+import com.squareup.moshi.Moshi;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Quick Summary:
+ * Serializes handler response records to JSON.
+ * Holds one Moshi instance for the whole server and creates each response type's adapter once;
+ * Moshi adapters are immutable, so the cached adapters are shared by all request threads.
+ */
+
+/**
+ * Serializes handler response records to JSON with shared, cached Moshi adapters.
+ */
+public final class ResponseSerializer {
+  // the Moshi instance every adapter is created from
+  private static final Moshi MOSHI = new Moshi.Builder().build();
+  // one adapter per response type, created on first use
+  private static final Map<Class<?>, JsonAdapter<?>> ADAPTERS = new ConcurrentHashMap<>();
+
+  private ResponseSerializer() {}
+
+  /**
+   * Returns the shared adapter for the specified type, creating it on first use.
+   *
+   * @param type - the type to adapt.
+   * @param <T> - the type to adapt.
+   * @return - the adapter for the type.
+   */
+  @SuppressWarnings("unchecked")
+  public static <T> JsonAdapter<T> adapter(Class<T> type) {
+    return (JsonAdapter<T>) ADAPTERS.computeIfAbsent(type, MOSHI::adapter);
+  }
+
+  /**
+   * Serializes a response to JSON.
+   *
+   * @param type - the type of the response.
+   * @param response - the response to serialize.
+   * @param <T> - the type of the response.
+   * @return - JSON representation of the response.
+   */
+  public static <T> String toJson(Class<T> type, T response) {
+    try {
+      return adapter(type).toJson(response);
+    } catch (Exception e) {
+      // for debugging purposes, show in the console _why_ this fails
+      // otherwise, we'll just get an error 500 from the API in integration testing
+      e.printStackTrace();
+      throw e;
+    }
+  }
+}
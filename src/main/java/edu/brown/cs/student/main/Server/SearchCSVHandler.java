@@ -1,22 +1,33 @@
 package edu.brown.cs.student.main.Server;
 
-import com.squareup.moshi.JsonAdapter;
-import com.squareup.moshi.Moshi;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
 import edu.brown.cs.student.main.Constants.Errors;
+import edu.brown.cs.student.main.DataSource.CSVData;
 import edu.brown.cs.student.main.DataSource.CSVDataSource;
+import edu.brown.cs.student.main.DataSource.RowBitmap;
 import edu.brown.cs.student.main.Exceptions.DatasourceException;
 import edu.brown.cs.student.main.Exceptions.ColumnConversionException;
+import edu.brown.cs.student.main.ParserUtils.SearchQuery;
 import edu.brown.cs.student.main.ParserUtils.UtilitySearch;
+import edu.brown.cs.student.main.ParserUtils.UtilitySearch.Comparison;
 import edu.brown.cs.student.main.ParserUtils.UtilitySearch.Options;
 import spark.Request;
 import spark.Response;
 import spark.Route;
 
-import java.util.ArrayList;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * Quick Summary:
@@ -25,18 +36,87 @@ import java.util.stream.Collectors;
  * Parses request parameters to determine search options and criteria.
  * Performs search operations on the CSV data matrix.
  * Constructs and returns success or failure responses based on search results.
+ * With op=lt, le, gt, ge, eq or between (or <, <=, >, >=, =), compares the colId column's
+ * values with val as numbers, or dates in a typed date column, instead of matching text;
+ * between also takes an inclusive upper bound, to. Comparisons are answered from a sorted index.
+ * With q, runs a boolean query such as `Town:Providence AND NOT County:Kent` instead of val and
+ * colId; see SearchQuery for the grammar. Queries are planned so the most selective terms run first.
+ * A query names its own columns and values, so q is rejected alongside val, colId, op or to.
+ * Writes matching rows in the binary columnar format instead of JSON when the client asks for it.
+ * Tags responses with the dataset version and answers matching If-None-Match requests with 304.
+ * Caches serialized responses in a size-bounded LRU cache keyed on the dataset version and the
+ * normalized search parameters, so repeated searches skip both the scan and the serialization.
+ * A dataset's responses are dropped as soon as the data source replaces or evicts it, or, for
+ * sources that do not report removals, when a newer version of that dataset is searched.
+ * Searches the current matrix, or the dataset named by the dataset parameter.
  */
 public class SearchCSVHandler implements Route {
+    // default heap, in bytes, the response cache may hold
+    public static final long DEFAULT_CACHE_BYTES = 32L << 20;
 
     private CSVDataSource source;
+    private final Cache<SearchKey, CachedResponse> cache; // serialized responses of recent searches
+    // newest version seen of each loaded dataset; entries go when the dataset is removed
+    private final ConcurrentMap<String, Long> cachedVersions = new ConcurrentHashMap<>();
 
     /**
-     * Constructs a SearchCSVHandler with the given CSVDataSource.
+     * Constructs a SearchCSVHandler with the given CSVDataSource and the default cache size.
      *
      * @param source - the CSV data source.
      */
     public SearchCSVHandler(CSVDataSource source){
+        this(source, DEFAULT_CACHE_BYTES);
+    }
+
+    /**
+     * Constructs a SearchCSVHandler with the given CSVDataSource.
+     *
+     * @param source - the CSV data source.
+     * @param cacheBytes - the total size, in bytes, of the responses the cache may hold; 0 disables it.
+     */
+    public SearchCSVHandler(CSVDataSource source, long cacheBytes){
         this.source = source;
+        this.cache = CacheBuilder.newBuilder()
+                .maximumWeight(cacheBytes)
+                .weigher((SearchKey key, CachedResponse response) -> response.body().length)
+                .recordStats()
+                .build();
+        source.addRemovalListener(this::dropResponses);
+    }
+
+    /**
+     * Drops the cached responses of a dataset that was replaced or evicted, which no request can
+     * search again, along with the version recorded for its name.
+     *
+     * @param name - the name of the dataset; empty for the current matrix.
+     * @param removed - the dataset that was removed.
+     */
+    private void dropResponses(String name, CSVData removed) {
+        long version = removed.version();
+        cachedVersions.computeIfPresent(name, (k, newest) -> newest <= version ? null : newest);
+        cache.asMap().keySet().removeIf(k -> k.dataset().equals(name) && k.version() <= version);
+    }
+
+    /**
+     * Returns the hit and miss counts of the response cache.
+     *
+     * @return - the cache statistics.
+     */
+    public CacheStats cacheStats() {
+        return this.cache.stats();
+    }
+
+    /**
+     * Handles the HTTP request for the response cache statistics.
+     *
+     * @param result - the HTTP request.
+     * @param data - the HTTP response.
+     * @return - serialized cache statistics.
+     */
+    public Object handleCacheStats(Request result, Response data) {
+        CacheStats stats = cacheStats();
+        return new CacheStatsResponse("success", stats.hitCount(), stats.missCount(),
+                stats.hitRate(), stats.evictionCount(), cache.size()).serialize();
     }
 
     /**
@@ -49,23 +129,53 @@ public class SearchCSVHandler implements Route {
      */
     @Override
     public Object handle(Request result, Response data) throws Exception {
+        // the body and ETag depend on whether the Accept header asks for the columnar format
+        ColumnarEncoder.varyOnAccept(data);
         // create a map to hold CSV search results
+        // retrieve the requested CSV data, the current matrix unless a dataset is named
+        String dataset = result.queryParams("dataset");
+        CSVData csvData = source.getMatrix(dataset);
         // check if CSVDataSource is initialized
-        if (source.getCurrentMatrix() == null) {
+        if (csvData == null) {
             // if not initialized, return a failure response map
-            return new CSVFailureResponse("error", "No data source initialized").serialize();
+            return new CSVFailureResponse("error", dataset == null
+                    ? "No data source initialized" : "Dataset '" + dataset + "' not loaded").serialize();
+        }
+        // results only change when a new dataset is loaded, so clients can revalidate cheaply
+        if (ConditionalRequests.notModified(result, data, csvData)) {
+            return "";
         }
-        // retrieve the current CSV matrix
-        List<List<String>> mtrx = source.getCurrentMatrix().mtrx();
         // parse request parameters
         Options[] options = new Options[]{UtilitySearch.Options.NONE, UtilitySearch.Options.NONE, UtilitySearch.Options.NONE};
         String val = result.queryParams("val");
         String colId = result.queryParams("colId");
         String opts = result.queryParams("opts");
+        String op = result.queryParams("op");
+        String to = result.queryParams("to");
+        String q = result.queryParams("q");
         // validate parameters
-        if (val == null) {
+        if (val == null && q == null) {
             throw new ColumnConversionException(Errors.ARGERR_MAIN.report());
         }
+        if (q != null && (val != null || colId != null || op != null || to != null)) {
+            return new CSVFailureResponse("error",
+                    "A query (q) cannot be combined with val, colId, op or to").serialize();
+        }
+        SearchQuery query = null;
+        if (q != null) {
+            try {
+                query = SearchQuery.parse(q);
+            } catch (IllegalArgumentException e) {
+                return new CSVFailureResponse("error", "Invalid query: " + e.getMessage()).serialize();
+            }
+        }
+        Comparison comparison = op == null ? null : Comparison.of(op);
+        if (op != null && comparison == null) {
+            return new CSVFailureResponse("error", "Unknown comparison '" + op + "'").serialize();
+        }
+        if (comparison != null && colId == null) {
+            return new CSVFailureResponse("error", "Comparisons need a column (colId)").serialize();
+        }
         // set search options
         if (opts != null) {
             if (opts.contains("h")) {
@@ -78,29 +188,154 @@ public class SearchCSVHandler implements Route {
                 options[2] = UtilitySearch.Options.MTCH_LOCK;
             }
         }
+        boolean columnar = ColumnarEncoder.requested(result);
+        // catches replacements by sources that do not report them, and searches that were still
+        // running on a dataset when it was replaced
+        String name = dataset == null ? "" : dataset;
+        long version = csvData.version();
+        Long cached = cachedVersions.get(name);
+        if (cached == null || cached < version) {
+            cachedVersions.merge(name, version, Math::max);
+            cache.asMap().keySet().removeIf(k -> k.dataset().equals(name) && k.version() < version);
+        }
+        // opts=p only changes how the search runs, not its result, so it is left out of the key
+        SearchKey key = new SearchKey(name, version, val, colId, List.of(options), comparison, to, q,
+                columnar);
+        CachedResponse response = cache.getIfPresent(key);
+        data.header("X-Cache", response == null ? "MISS" : "HIT");
+        if (response == null) {
+            response = search(csvData, options, val, colId, opts, comparison, to, query, columnar);
+            cache.put(key, response);
+        }
+        data.type(response.type());
+        try (OutputStream out = ResponseCompression.open(result, data)) {
+            out.write(response.body());
+        }
+        return "";
+    }
+
+    /**
+     * Runs a search and serializes its response.
+     *
+     * @param csvData - the dataset to search.
+     * @param options - the search options.
+     * @param val - the value to search for.
+     * @param colId - the column to search in, or null for every column.
+     * @param opts - the opts parameter, or null if absent.
+     * @param comparison - the comparison to make, or null to match text.
+     * @param to - the upper bound of a between comparison, or null.
+     * @param query - the boolean query to run instead of val, or null.
+     * @param columnar - whether matching rows are written in the columnar format.
+     * @return - the serialized response.
+     * @throws ColumnConversionException - if the column cannot be found.
+     * @throws IOException - if the columnar response cannot be written.
+     */
+    private CachedResponse search(CSVData csvData, Options[] options, String val, String colId,
+            String opts, Comparison comparison, String to, SearchQuery query, boolean columnar)
+            throws ColumnConversionException, IOException {
         // perform search operations
-        UtilitySearch search = new UtilitySearch(mtrx, options);
-        List<Integer> toPrint = new ArrayList<>();
-        int row;
-        if (colId == null) {
-            while ((row = search.search(val)) != -1) toPrint.add(row);
+        UtilitySearch search = new UtilitySearch(csvData, options);
+        // opts=p forces a parallel scan; large datasets are scanned in parallel regardless
+        search.setParallel(opts != null && opts.contains("p"));
+        RowBitmap toPrint;
+        if (query != null) {
+            try {
+                toPrint = query.evaluate(search);
+            } catch (ColumnConversionException | NumberFormatException e) {
+                System.err.println("Error when running query: " + e.getMessage());
+                return CachedResponse.of(new CSVFailureResponse("error", e.getMessage()).serialize());
+            }
+        } else if (comparison != null) {
+            try {
+                toPrint = search.searchRange(comparison, val, to, colId);
+            } catch (ColumnConversionException | NumberFormatException e) {
+                System.err.println("Error when comparing: " + e.getMessage());
+                return CachedResponse.of(new CSVFailureResponse("error", e.getMessage()).serialize());
+            }
         } else {
-            while ((row = search.search(val, colId)) != -1) toPrint.add(row);
+            toPrint = colId == null ? search.searchAll(val) : search.searchAll(val, colId);
         }
 
-        if (!toPrint.isEmpty()) {
-            return new CSVSuccessResponse(toPrint.stream().map(mtrx::get).collect(Collectors.toList())).serialize();
+        if (!toPrint.isEmpty() && columnar) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            ColumnarEncoder.write(csvData, toPrint.toArray(),
+                    IntStream.range(0, csvData.colCount()).toArray(), out);
+            return new CachedResponse(ColumnarEncoder.CONTENT_TYPE, out.toByteArray());
+        } else if (!toPrint.isEmpty()) {
+            List<List<String>> mtrx = csvData.mtrx();
+            return CachedResponse.of(new CSVSuccessResponse(toPrint.stream().mapToObj(mtrx::get).collect(Collectors.toList())).serialize());
         } else {
             String errorRes;
-            if (colId == null) {
+            if (query != null) {
+                errorRes = "No rows match " + query;
+                System.err.println("No rows match " + query);
+            } else if (colId == null) {
                 errorRes = "Value '" + val + "' not found within column '" + colId + "'";
                 System.err.println("Value '" + val + "' not found within column '" + colId + "'");
             } else {
                 errorRes = "Value '" + val + "' not found";
                 System.err.println("Value '" + val + "' not found");
             }
-            return new CSVFailureResponse("error", errorRes).
-                    serialize();
+            return CachedResponse.of(new CSVFailureResponse("error", errorRes).
+                    serialize());
+        }
+    }
+
+    /**
+     * Identifies a search whose response can be reused.
+     *
+     * @param dataset - the name of the dataset searched; empty for the current matrix.
+     * @param version - the version of the dataset searched.
+     * @param val - the value searched for.
+     * @param colId - the column searched in, or null for every column.
+     * @param options - the search options parsed from the opts parameter.
+     * @param comparison - the comparison made, or null for a text match.
+     * @param to - the upper bound of a between comparison, or null.
+     * @param q - the boolean query run instead of val, or null.
+     * @param columnar - whether the response is in the columnar format.
+     */
+    private record SearchKey(String dataset, long version, String val, String colId,
+            List<Options> options, Comparison comparison, String to, String q, boolean columnar) {}
+
+    /**
+     * A serialized search response.
+     *
+     * @param type - the content type.
+     * @param body - the response body.
+     */
+    private record CachedResponse(String type, byte[] body) {
+
+        /**
+         * Constructs a CachedResponse holding a JSON body.
+         *
+         * @param json - the serialized JSON.
+         * @return - the cached response.
+         */
+        static CachedResponse of(String json) {
+            return new CachedResponse("application/json", json.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Represents the response cache statistics.
+     *
+     * @param result - the type of the response.
+     * @param hits - the number of searches answered from the cache.
+     * @param misses - the number of searches that had to run.
+     * @param hitRate - the fraction of searches answered from the cache.
+     * @param evictions - the number of responses evicted to stay within the size bound.
+     * @param entries - the number of responses currently cached.
+     */
+    public record CacheStatsResponse(String result, long hits, long misses, double hitRate,
+            long evictions, long entries) {
+
+        /**
+         * Serializes the CacheStatsResponse to JSON.
+         *
+         * @return - JSON representation of the response.
+         */
+        String serialize() {
+            return ResponseSerializer.toJson(CacheStatsResponse.class, this);
         }
     }
 
@@ -127,20 +362,7 @@ public class SearchCSVHandler implements Route {
          * @return - JSON representation of the response.
          */
         String serialize() {
-            try {
-                // initialize Moshi to serialize the response to JSON
-                Moshi moshi = new Moshi.Builder().build();
-                // create a JSON adapter for CSVSuccessResponse
-                JsonAdapter<CSVSuccessResponse> adapter = moshi.adapter(CSVSuccessResponse.class);
-                // serialize the response object to JSON
-                return adapter.toJson(this).replace("\\\"", "\"");
-            } catch (Exception e) {
-                // for debugging purposes, show in the console _why_ this fails
-                // otherwise, we'll just get an error 500 from the API in integration testing
-                // print the stack trace if serialization fails
-                e.printStackTrace();
-                throw e;
-            }
+            return ResponseSerializer.toJson(CSVSuccessResponse.class, this);
         }
     }
 
@@ -158,9 +380,7 @@ public class SearchCSVHandler implements Route {
          * @return - JSON representation of the response.
          */
         String serialize() {
-            Moshi moshi = new Moshi.Builder().build();
-            return moshi.adapter(CSVFailureResponse.class).toJson(this)
-                    .replace("\\\"", "\"");
+            return ResponseSerializer.toJson(CSVFailureResponse.class, this);
         }
     }
 }
\ No newline at end of file
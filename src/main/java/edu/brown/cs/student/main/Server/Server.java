@@ -6,9 +6,11 @@ import edu.brown.cs.student.main.DataSource.CSVDataSource;
 import edu.brown.cs.student.main.DataSource.GeneralCSVDataSource;
 
 import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
 import spark.Spark;
 
 import static spark.Spark.after;
+import static spark.Spark.before;
 
 /**
  * Quick Summary:
@@ -47,15 +49,27 @@ public class  Server {
        We recommend you learn more about CORS with these resources:
            - https://developer.mozilla.org/en-US/docs/Web/HTTP/CORS
            - https://portswigger.net/web-security/cors
+
+       The headers are set before the handler runs because streamed responses (e.g. viewcsv) are
+       committed while the handler is still writing, after which headers can no longer be added.
     */
-    after(
+    before(
         (request, response) -> {
           response.header("Access-Control-Allow-Origin", "*");
           response.header("Access-Control-Allow-Methods", "*");
         });
+    // compressing responses the client accepts gzip or deflate for, except small ones
+    int compressionMinSize = ResponseCompression.DEFAULT_MIN_SIZE; // bytes below which responses are sent as-is
+    int compressionLevel = Deflater.DEFAULT_COMPRESSION; // 0 (fastest) to 9 (smallest)
+    ResponseCompression compression = new ResponseCompression(compressionMinSize, compressionLevel);
+    before(compression::install);
+    after(compression::compressBody);
     // setting up data source needed for the handlers
-    CSVDataSource source = new GeneralCSVDataSource();
+    long trigramBudget = 64L << 20; // heap each dataset may spend on substring-search indexes
+    long datasetBudget = Runtime.getRuntime().maxMemory() / 2; // heap all loaded datasets may share
+    CSVDataSource source = new GeneralCSVDataSource(trigramBudget, datasetBudget);
     System.out.println(source);
+    long searchCacheBytes = SearchCSVHandler.DEFAULT_CACHE_BYTES; // heap for cached search responses
 
     // defining caching parameters for the ACS datasource
     int size = 100; // maximum size of the cache
@@ -64,9 +78,13 @@ public class  Server {
     ACSDataSourceProxy acsDataSourceProxy = new ACSDataSourceProxy(size,
             expireAfterWriteDuration, timeUnit);
     // setting up Spark handlers for various endpoints
-    Spark.get("loadcsv", new LoadCSVHandler(source));
+    LoadCSVHandler loadHandler = new LoadCSVHandler(source);
+    Spark.get("loadcsv", loadHandler);
+    Spark.get("loadstatus", loadHandler::handleStatus);
     Spark.get("viewcsv", new ViewCSVHandler(source));
-    Spark.get("searchcsv", new SearchCSVHandler(source));
+    SearchCSVHandler searchHandler = new SearchCSVHandler(source, searchCacheBytes);
+    Spark.get("searchcsv", searchHandler);
+    Spark.get("searchcachestats", searchHandler::handleCacheStats);
     Spark.get("broadband", new BroadbandHandler(acsDataSourceProxy));
     // initialize Spark and await initialization
     Spark.init();
@@ -1,24 +1,33 @@
 package edu.brown.cs.student.main.Server;
 
-import com.squareup.moshi.JsonAdapter;
-import com.squareup.moshi.Moshi;
+import com.squareup.moshi.JsonWriter;
+import edu.brown.cs.student.main.DataSource.CSVData;
 import edu.brown.cs.student.main.DataSource.CSVDataSource;
 import edu.brown.cs.student.main.Exceptions.DatasourceException;
+import okio.Okio;
 import spark.Request;
 import spark.Response;
 import spark.Route;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.AbstractList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.IntStream;
 
 /**
  * Quick Summary:
  * Handles HTTP requests to view CSV data.
  * Checks if the CSV data source is initialized and retrieves the current matrix.
- * Constructs a response map containing the CSV data.
- * Serializes the response map to JSON using Moshi.
- * Provides the serialized JSON response as the HTTP response.
+ * Streams the CSV data to the HTTP response as JSON, one row at a time, so the whole matrix is
+ * never held as a single String and the first bytes are sent before the last row is encoded.
+ * Supports pagination with offset/limit parameters and opaque cursor tokens, and column projection
+ * with cols=; only the rows and columns of the requested page are read and serialized.
+ * Writes the page in the binary columnar format instead of JSON when the client asks for it.
+ * Views the current matrix, or the dataset named by the dataset parameter.
+ * Tags responses with the dataset version and answers matching If-None-Match requests with 304.
  * Contains inner record classes for representing success and failure responses.
  */
 public class ViewCSVHandler implements Route  {
@@ -44,15 +53,145 @@ public class ViewCSVHandler implements Route  {
      */
     @Override
     public Object handle(Request result, Response data) throws Exception {
+        // the body and ETag depend on whether the Accept header asks for the columnar format
+        ColumnarEncoder.varyOnAccept(data);
+        // view the current matrix unless a dataset is named
+        String dataset = result.queryParams("dataset");
+        CSVData csvData = source.getMatrix(dataset);
         // check if CSVDataSource is initialized
-        if (source.getCurrentMatrix() == null) {
+        if (csvData == null) {
             // if not initialized, return a failure response
-            return new CSVFailureResponse("error",
-                    "No data source initialized").serialize();
+            return new CSVFailureResponse("error", dataset == null
+                    ? "No data source initialized" : "Dataset '" + dataset + "' not loaded").serialize();
         }
+        // the page only changes when a new dataset is loaded, so clients can revalidate cheaply
+        if (ConditionalRequests.notModified(result, data, csvData)) {
+            return "";
+        }
+
+        // parse the page: a cursor carries the offset, limit and columns of the previous request
+        PageCursor page;
+        int[] cols;
+        try {
+            String cursor = result.queryParams("cursor");
+            if (cursor != null) {
+                page = PageCursor.decode(cursor);
+                if (page.dataset() != csvData.version()) {
+                    return new CSVFailureResponse("error",
+                            "Cursor refers to a dataset that is no longer loaded").serialize();
+                }
+            } else {
+                String offset = result.queryParams("offset");
+                String limit = result.queryParams("limit");
+                page = new PageCursor(offset == null ? 0 : Integer.parseInt(offset),
+                        limit == null ? csvData.rowCount() : Integer.parseInt(limit),
+                        result.queryParams("cols"), csvData.version());
+                if (page.offset() < 0 || (limit != null && page.limit() <= 0)) {
+                    return new CSVFailureResponse("error",
+                            "offset must not be negative and limit must be positive").serialize();
+                }
+            }
+            cols = parseCols(csvData, page.cols());
+        } catch (NumberFormatException e) {
+            return new CSVFailureResponse("error", "offset and limit must be integers").serialize();
+        } catch (IllegalArgumentException e) {
+            return new CSVFailureResponse("error", e.getMessage()).serialize();
+        }
+
+        // only the requested slice is viewed; the cursor is only issued if rows remain
+        int from = Math.min(page.offset(), csvData.rowCount());
+        int to = (int) Math.min((long) from + page.limit(), csvData.rowCount());
+        String next = to < csvData.rowCount()
+                ? new PageCursor(to, page.limit(), page.cols(), page.dataset()).encode() : null;
+        if (ColumnarEncoder.requested(result)) {
+            // the cursor travels in a header, since the columnar body has no room for it
+            if (next != null) {
+                data.header("Next-Cursor", next);
+            }
+            data.type(ColumnarEncoder.CONTENT_TYPE);
+            try (OutputStream out = ResponseCompression.open(result, data)) {
+                ColumnarEncoder.write(csvData, IntStream.range(from, to).toArray(),
+                        cols == null ? IntStream.range(0, csvData.colCount()).toArray() : cols, out);
+            }
+            return "";
+        }
+        // stream the page straight to the client; the body is already written
+        try (OutputStream out = ResponseCompression.open(result, data)) {
+            new CSVSuccessResponse("success", window(csvData, from, to, cols), next).writeTo(out);
+        }
+        return "";
+    }
 
-        // return serialized response with response matrix
-        return new CSVSuccessResponse(source.getCurrentMatrix().mtrx()).serialize();
+    /**
+     * Resolves a cols= projection into column indices.
+     *
+     * @param csvData - the dataset.
+     * @param colsParam - comma-separated column indices or header names, or null for every column.
+     * @return - the column indices, or null for every column.
+     * @throws IllegalArgumentException - if a column does not exist.
+     */
+    private static int[] parseCols(CSVData csvData, String colsParam) {
+        if (colsParam == null) {
+            return null;
+        }
+        String[] names = colsParam.split(",");
+        int[] cols = new int[names.length];
+        for (int i = 0; i < names.length; i++) {
+            String name = names[i].trim();
+            cols[i] = -1;
+            try {
+                cols[i] = Integer.parseInt(name);
+            } catch (NumberFormatException e) {
+                // not an index, so look the name up in the header row
+                for (int col = 0; col < csvData.colCount() && csvData.rowCount() > 0; col++) {
+                    if (name.equals(csvData.get(0, col))) {
+                        cols[i] = col;
+                        break;
+                    }
+                }
+            }
+            if (cols[i] < 0 || cols[i] >= csvData.colCount()) {
+                throw new IllegalArgumentException("Column '" + name + "' not found");
+            }
+        }
+        return cols;
+    }
+
+    /**
+     * Returns a read-only view of a range of rows, optionally projected onto some columns.
+     *
+     * @param csvData - the dataset.
+     * @param from - the first row, inclusive.
+     * @param to - the last row, exclusive.
+     * @param cols - the columns to include, or null for every column.
+     * @return - the rows in the range.
+     */
+    private static List<List<String>> window(CSVData csvData, int from, int to, int[] cols) {
+        if (cols == null) {
+            return csvData.mtrx().subList(from, to);
+        }
+        return new AbstractList<>() {
+            @Override
+            public List<String> get(int i) {
+                int row = from + i;
+                return new AbstractList<>() {
+                    @Override
+                    public String get(int j) {
+                        return csvData.get(row, cols[j]);
+                    }
+
+                    @Override
+                    public int size() {
+                        return cols.length;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return to - from;
+            }
+        };
     }
 
     /**
@@ -60,8 +199,9 @@ public class ViewCSVHandler implements Route  {
      *
      * @param result - the type of the response.
      * @param data - the response list containing CSV data.
+     * @param next - the cursor for the next page, or null if this is the last page.
      */
-    public record CSVSuccessResponse(String result, List<List<String>> data) {
+    public record CSVSuccessResponse(String result, List<List<String>> data, String next) {
 
         /**
          * Constructs a CSVSuccessResponse with the given response.
@@ -69,7 +209,7 @@ public class ViewCSVHandler implements Route  {
          * @param data - the response list containing CSV search results.
          */
         public CSVSuccessResponse(List<List<String>> data) {
-            this("success", data);
+            this("success", data, null);
         }
 
         /**
@@ -78,20 +218,34 @@ public class ViewCSVHandler implements Route  {
          * @return - JSON representation of the response.
          */
         String serialize() {
-            try {
-                // initialize Moshi to serialize the response to JSON
-                Moshi moshi = new Moshi.Builder().build();
-                // create a JSON adapter for CSVSuccessResponse
-                JsonAdapter<CSVSuccessResponse> adapter = moshi.adapter(CSVSuccessResponse.class);
-                // serialize the response object to JSON
-                return adapter.toJson(this).replace("\\\"", "\"");
-            } catch (Exception e) {
-                // for debugging purposes, show in the console _why_ this fails
-                // otherwise, we'll just get an error 500 from the API in integration testing
-                // print the stack trace if serialization fails
-                e.printStackTrace();
-                throw e;
+            return ResponseSerializer.toJson(CSVSuccessResponse.class, this);
+        }
+
+        /**
+         * Writes the CSVSuccessResponse as JSON to the specified stream, row by row.
+         * Produces the same JSON as serialize() without building it in memory first.
+         *
+         * @param out - the stream to write to; it is flushed but not closed.
+         * @throws IOException - if the stream cannot be written.
+         */
+        void writeTo(OutputStream out) throws IOException {
+            JsonWriter writer = JsonWriter.of(Okio.buffer(Okio.sink(out)));
+            writer.beginObject();
+            writer.name("result").value(result);
+            writer.name("data").beginArray();
+            for (List<String> row : data) {
+                writer.beginArray();
+                for (String cell : row) {
+                    writer.value(cell);
+                }
+                writer.endArray();
+            }
+            writer.endArray();
+            if (next != null) {
+                writer.name("next").value(next);
             }
+            writer.endObject();
+            writer.flush();
         }
     }
 
@@ -109,9 +263,7 @@ public class ViewCSVHandler implements Route  {
          * @return - JSON representation of the response.
          */
         String serialize() {
-            Moshi moshi = new Moshi.Builder().build();
-            return moshi.adapter(CSVFailureResponse.class).toJson(this)
-                    .replace("\\\"", "\"");
+            return ResponseSerializer.toJson(CSVFailureResponse.class, this);
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,36 @@
+package edu.brown.cs.student.main.CreatorFromRow;
+
+import edu.brown.cs.student.main.Exceptions.FactoryFailureException;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class InterningCreatorFromRowTest {
+
+  @Test
+  public void sharesRepeatedValuesTest() throws FactoryFailureException {
+    // Equal values in the same column come back as the same instance
+    InterningCreatorFromRow creator = new InterningCreatorFromRow();
+    List<String> first = creator.create(Arrays.asList(new String("Providence"), "1"));
+    List<String> second = creator.create(Arrays.asList(new String("Providence"), "2"));
+    Assert.assertEquals(Arrays.asList("Providence", "2"), second);
+    Assert.assertSame(first.get(0), second.get(0));
+    Assert.assertEquals(1, creator.hits());
+    Assert.assertEquals(3, creator.misses());
+    Assert.assertEquals(0.25, creator.hitRate(), 1e-9);
+    Assert.assertEquals(new InterningCreatorFromRow.Stats(1, 3, 0.25), creator.stats());
+  }
+
+  @Test
+  public void boundedDictionaryTest() throws FactoryFailureException {
+    // Values beyond the bound are passed through and never become hits
+    InterningCreatorFromRow creator = new InterningCreatorFromRow(1);
+    creator.create(Arrays.asList("a"));
+    creator.create(Arrays.asList("b"));
+    creator.create(Arrays.asList("b"));
+    creator.create(Arrays.asList("a"));
+    Assert.assertEquals(1, creator.hits());
+    Assert.assertEquals(3, creator.misses());
+  }
+}
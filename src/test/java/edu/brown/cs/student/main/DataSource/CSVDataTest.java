@@ -0,0 +1,225 @@
+package edu.brown.cs.student.main.DataSource;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CSVDataTest {
+
+  @Test
+  public void rowViewTest() {
+    // The row view returns the same cells that went in, including ragged rows
+    List<List<String>> mtrx =
+        Arrays.asList(
+            Arrays.asList("Town", "County", "Income"),
+            Arrays.asList("Barrington", "Bristol", "130,455.00"),
+            Arrays.asList("Bristol", "Bristol"));
+    CSVData data = new CSVData(mtrx);
+    Assert.assertEquals(mtrx, data.mtrx());
+    Assert.assertEquals(3, data.rowCount());
+    Assert.assertEquals(3, data.colCount());
+    Assert.assertEquals(2, data.width(2));
+    Assert.assertNull(data.get(2, 2));
+    Assert.assertEquals("Bristol", data.get(1, 1));
+  }
+
+  @Test
+  public void dictionaryEncodingTest() {
+    // A repetitive column is dictionary-encoded, a unique column is not
+    List<List<String>> mtrx = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      mtrx.add(Arrays.asList("town" + (i % 3), "id" + i));
+    }
+    CSVData data = new CSVData(mtrx);
+    Assert.assertTrue(data.column(0) instanceof DictionaryColumn);
+    Assert.assertEquals(4, ((DictionaryColumn) data.column(0)).dictionarySize());
+    Assert.assertTrue(data.column(1) instanceof StringColumn);
+    Assert.assertEquals(mtrx, data.mtrx());
+  }
+
+  @Test
+  public void wideDictionaryTest() {
+    // Dictionaries with more than 255 entries switch to wider codes without losing values
+    List<List<String>> mtrx = new ArrayList<>();
+    for (int i = 0; i < 2000; i++) {
+      mtrx.add(Arrays.asList("v" + (i % 700)));
+    }
+    CSVData data = new CSVData(mtrx);
+    Assert.assertTrue(data.column(0) instanceof DictionaryColumn);
+    Assert.assertEquals(mtrx, data.mtrx());
+  }
+
+  @Test
+  public void foldedColumnTest() {
+    // Shadow columns hold lowercase cells and reuse cells that are already lowercase
+    List<List<String>> mtrx = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      mtrx.add(Arrays.asList(i % 2 == 0 ? "Providence" : "warwick", "ID" + i, "id" + i));
+    }
+    CSVData data = new CSVData(mtrx);
+    Assert.assertEquals("providence", data.foldedColumn(0).get(0));
+    Assert.assertEquals("warwick", data.foldedColumn(0).get(1));
+    Assert.assertEquals("id3", data.foldedColumn(1).get(3));
+    Assert.assertSame(data.get(3, 2), data.foldedColumn(2).get(3));
+    Assert.assertSame(data.foldedColumn(0), data.foldedColumn(0));
+  }
+
+  @Test
+  public void exactIndexTest() {
+    // The index returns every matching row in order, folding case when asked to
+    List<List<String>> mtrx =
+        Arrays.asList(
+            Arrays.asList("Town"), Arrays.asList("Providence"), Arrays.asList("Warwick"),
+            Arrays.asList("providence"), Arrays.asList("Providence"));
+    CSVData data = new CSVData(mtrx);
+    Assert.assertArrayEquals(new int[] {1, 4}, data.exactIndex(0, true).rows("Providence"));
+    Assert.assertArrayEquals(new int[] {1, 3, 4}, data.exactIndex(0, false).rows("PROVIDENCE"));
+    Assert.assertArrayEquals(new int[] {}, data.exactIndex(0, true).rows("Newport"));
+    Assert.assertSame(data.exactIndex(0, true), data.exactIndex(0, true));
+  }
+
+  @Test
+  public void trigramIndexTest() {
+    // Candidates include every row containing the value, in any case
+    List<List<String>> mtrx =
+        Arrays.asList(
+            Arrays.asList("North Providence", "x"), Arrays.asList("Warwick", "PROVIDENCE"),
+            Arrays.asList("Newport", "Bristol"), Arrays.asList("Providen", "ce"));
+    CSVData data = new CSVData(mtrx, 1 << 20);
+    Assert.assertArrayEquals(new int[] {0}, data.trigramIndex(0).candidates("providence"));
+    Assert.assertArrayEquals(new int[] {0, 1}, data.trigramIndex(-1).candidates("Providence"));
+    Assert.assertArrayEquals(new int[] {}, data.trigramIndex(-1).candidates("Cranston"));
+    Assert.assertTrue(TrigramIndex.supports("abc"));
+    Assert.assertFalse(TrigramIndex.supports("ab"));
+    Assert.assertFalse(TrigramIndex.supports("São"));
+  }
+
+  @Test
+  public void trigramBudgetTest() {
+    // No index is built when it would not fit, or when trigram indexing is disabled
+    List<List<String>> mtrx = Arrays.asList(Arrays.asList("Providence"), Arrays.asList("Warwick"));
+    Assert.assertNull(new CSVData(mtrx, 100).trigramIndex(0));
+    Assert.assertNull(new CSVData(mtrx).trigramIndex(0));
+  }
+
+  @Test
+  public void trigramBudgetRaceTest() throws InterruptedException {
+    // Two indexes built at once never take more than the budget between them
+    List<List<String>> mtrx = new ArrayList<>();
+    for (int i = 0; i < 2000; i++) {
+      mtrx.add(Arrays.asList("left" + i, "rite" + i));
+    }
+    long one = new CSVData(mtrx, Long.MAX_VALUE).trigramIndex(0).bytes();
+    for (int trial = 0; trial < 20; trial++) {
+      CSVData data = new CSVData(mtrx, one * 3 / 2);
+      CountDownLatch start = new CountDownLatch(1);
+      TrigramIndex[] built = new TrigramIndex[2];
+      Thread[] threads = new Thread[2];
+      for (int col = 0; col < 2; col++) {
+        int c = col;
+        threads[col] = new Thread(() -> {
+          try {
+            start.await();
+          } catch (InterruptedException e) {
+            return;
+          }
+          built[c] = data.trigramIndex(c);
+        });
+        threads[col].start();
+      }
+      start.countDown();
+      for (Thread thread : threads) {
+        thread.join();
+      }
+      Assert.assertTrue((built[0] == null) != (built[1] == null));
+    }
+  }
+
+  @Test
+  public void typedColumnsTest() {
+    // Numbers and dates are stored as primitives, yet every cell reads back exactly as loaded
+    List<List<String>> mtrx = new ArrayList<>();
+    mtrx.add(Arrays.asList("Town", "Income", "Count", "Big", "Date", "Zip"));
+    for (int i = 0; i < 200; i++) {
+      mtrx.add(Arrays.asList(
+          "Town" + i,
+          String.format("\"%,d.%02d\"", i * 1234, i % 100),
+          Integer.toString(i - 100),
+          Long.toString(5_000_000_000L * i),
+          String.format("%d/%d/2021", i % 12 + 1, i % 28 + 1),
+          String.format("%05d", i)));
+    }
+    mtrx.add(Arrays.asList("Total", "", "N/A"));
+    CSVData data = new CSVData(mtrx, 0, true);
+    Assert.assertEquals(mtrx, data.mtrx());
+    Assert.assertEquals(ColumnType.STRING, data.column(0).type());
+    Assert.assertEquals(ColumnType.DECIMAL, data.column(1).type());
+    Assert.assertEquals(ColumnType.INT, data.column(2).type());
+    Assert.assertEquals(ColumnType.LONG, data.column(3).type());
+    Assert.assertEquals(ColumnType.DATE, data.column(4).type());
+    // leading zeros would be lost by a number, so the zip codes stay text
+    Assert.assertEquals(ColumnType.STRING, data.column(5).type());
+
+    NumberColumn income = (NumberColumn) data.column(1);
+    Assert.assertEquals("\"1,234.01\"", income.get(2));
+    Assert.assertEquals(1234.01, income.doubleValue(2), 1e-9);
+    Assert.assertEquals(123401, income.scaledValue(2));
+    Assert.assertFalse(income.hasValue(0));
+    Assert.assertFalse(income.hasValue(201));
+    Assert.assertTrue(income.hasValue(1));
+    Assert.assertEquals(-100, ((NumberColumn) data.column(2)).doubleValue(1), 0);
+    Assert.assertEquals("1/1/2021", data.get(1, 4));
+
+    // typed columns fold only their verbatim cells, and cost less than strings
+    Assert.assertEquals("total", data.foldedColumn(0).get(201));
+    Assert.assertEquals("n/a", data.foldedColumn(2).get(201));
+    Assert.assertEquals("-100", data.foldedColumn(2).get(1));
+    Assert.assertTrue(data.bytes() < new CSVData(mtrx).bytes());
+  }
+
+  @Test
+  public void typeInferenceFallbackTest() {
+    // Columns that only look numeric in places stay text, and nothing is typed unless asked
+    List<List<String>> mtrx = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      mtrx.add(Arrays.asList(
+          i % 3 == 0 ? "n/a" : Integer.toString(i), i % 5 == 0 ? "1.25" : "1.5", Integer.toString(i)));
+    }
+    CSVData typed = new CSVData(mtrx, 0, true);
+    Assert.assertEquals(ColumnType.STRING, typed.column(0).type());
+    Assert.assertEquals(ColumnType.CATEGORICAL, typed.column(1).type());
+    Assert.assertEquals(ColumnType.INT, typed.column(2).type());
+    Assert.assertEquals(mtrx, typed.mtrx());
+    Assert.assertEquals(ColumnType.STRING, new CSVData(mtrx).column(2).type());
+  }
+
+  @Test
+  public void bitmapPostingsTest() {
+    // Long posting lists are held as bitmaps but read back as the same rows
+    List<List<String>> mtrx = new ArrayList<>();
+    for (int i = 0; i < 20_000; i++) {
+      mtrx.add(Arrays.asList(i % 2 == 0 ? "even" : "odd", "v" + i));
+    }
+    ColumnIndex index = new CSVData(mtrx).exactIndex(0, true);
+    Assert.assertEquals(10_000, index.count("even"));
+    Assert.assertEquals(10_000, index.rows("odd").length);
+    Assert.assertEquals(RowBitmap.of(index.rows("even")), index.bitmap("even"));
+    Assert.assertTrue(index.bitmap("even").contains(19_998));
+    Assert.assertEquals(10, index.firstRow("even", 9, row -> false));
+    Assert.assertEquals(14, index.firstRow("even", 9, row -> row < 14));
+    Assert.assertEquals(-1, index.firstRow("odd", 19_999, row -> row == 19_999));
+    Assert.assertEquals(-1, index.firstRow("none", 0, row -> false));
+    Assert.assertFalse(index.bitmap("even").contains(19_999));
+    Assert.assertEquals(0, index.count("none"));
+    Assert.assertTrue(index.bitmap("none").isEmpty());
+  }
+
+  @Test
+  public void emptyTest() {
+    Assert.assertEquals(0, new CSVData(new ArrayList<>()).rowCount());
+    Assert.assertEquals(0, new CSVData(null).mtrx().size());
+  }
+}
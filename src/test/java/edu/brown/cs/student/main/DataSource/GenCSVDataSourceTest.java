@@ -1,4 +1,104 @@
 package edu.brown.cs.student.main.DataSource;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.Assert;
+import org.junit.Test;
+
 public class GenCSVDataSourceTest {
+
+  /**
+   * Builds a matrix of distinct cells.
+   *
+   * @param rows - the number of rows.
+   * @return - the matrix.
+   */
+  private static List<List<String>> matrix(int rows) {
+    List<List<String>> mtrx = new ArrayList<>();
+    for (int i = 0; i < rows; i++) {
+      mtrx.add(Arrays.asList("town" + i, "county" + i));
+    }
+    return mtrx;
+  }
+
+  @Test
+  public void namedDatasetsTest() {
+    // Named datasets live alongside the current matrix without replacing it
+    GeneralCSVDataSource source = new GeneralCSVDataSource();
+    Assert.assertNull(source.getCurrentMatrix());
+    source.setCurrentMatrix(matrix(2));
+    source.setMatrix("income", matrix(3));
+    Assert.assertEquals(2, source.getCurrentMatrix().rowCount());
+    Assert.assertEquals(3, source.getMatrix("income").rowCount());
+    Assert.assertNull(source.getMatrix("broadband"));
+    Assert.assertEquals(Arrays.asList("", "income"), source.names());
+  }
+
+  @Test
+  public void evictionTest() {
+    // Loading past the budget evicts the least recently used datasets first
+    long size = new CSVData(matrix(100)).bytes();
+    GeneralCSVDataSource source = new GeneralCSVDataSource(0, 3 * size);
+    source.setMatrix("a", matrix(100));
+    source.setMatrix("b", matrix(100));
+    source.setMatrix("c", matrix(100));
+    source.getMatrix("a");
+    source.setMatrix("d", matrix(100));
+    Assert.assertNull(source.getMatrix("b"));
+    Assert.assertEquals(Arrays.asList("c", "a", "d"), source.names());
+    Assert.assertEquals(3 * size, source.usedBytes());
+
+    // Replacing a dataset only counts its new size, and a dataset over budget is still loaded
+    source.setMatrix("a", matrix(100));
+    Assert.assertEquals(3 * size, source.usedBytes());
+    source.setMatrix("e", matrix(1000));
+    Assert.assertEquals(Arrays.asList("e"), source.names());
+  }
+
+  @Test
+  public void removalListenerTest() {
+    // Listeners hear of every replaced or evicted dataset, but not of new ones
+    long size = new CSVData(matrix(100)).bytes();
+    GeneralCSVDataSource source = new GeneralCSVDataSource(0, 2 * size);
+    Map<String, Long> removed = new TreeMap<>();
+    source.addRemovalListener((name, data) -> removed.put(name, data.version()));
+    source.setCurrentMatrix(matrix(100));
+    long current = source.getCurrentMatrix().version();
+    source.setMatrix("a", matrix(100));
+    long a = source.getMatrix("a").version();
+    Assert.assertTrue(removed.isEmpty());
+    source.setCurrentMatrix(matrix(100));
+    Assert.assertEquals(Map.of("", current), removed);
+    removed.clear();
+    source.setMatrix("b", matrix(100));
+    Assert.assertEquals(Map.of("a", a), removed);
+  }
+
+  @Test
+  public void concurrentSwapTest() throws InterruptedException {
+    // Readers racing with loads only ever see fully built datasets
+    GeneralCSVDataSource source = new GeneralCSVDataSource();
+    source.setCurrentMatrix(matrix(10));
+    AtomicBoolean done = new AtomicBoolean();
+    AtomicBoolean torn = new AtomicBoolean();
+    Thread reader = new Thread(() -> {
+      while (!done.get()) {
+        CSVData data = source.getCurrentMatrix();
+        int last = data.rowCount() - 1;
+        torn.compareAndSet(false, !("town" + last).equals(data.get(last, 0)));
+      }
+    });
+    reader.start();
+    for (int i = 1; i <= 200; i++) {
+      source.setCurrentMatrix(matrix(10 + i));
+    }
+    done.set(true);
+    reader.join();
+    Assert.assertFalse(torn.get());
+    Assert.assertEquals(210, source.getCurrentMatrix().rowCount());
+  }
 }
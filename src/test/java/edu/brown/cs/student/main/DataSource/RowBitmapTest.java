@@ -0,0 +1,115 @@
+package edu.brown.cs.student.main.DataSource;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class RowBitmapTest {
+
+  private static BitSet bits(RowBitmap bitmap) {
+    BitSet set = new BitSet();
+    bitmap.forEach(set::set);
+    return set;
+  }
+
+  private static RowBitmap randomBitmap(Random random, BitSet oracle, int bound, int count) {
+    int[] rows = new int[count];
+    for (int i = 0; i < count; i++) {
+      rows[i] = random.nextInt(bound);
+      oracle.set(rows[i]);
+    }
+    return RowBitmap.of(rows);
+  }
+
+  @Test
+  public void basicTest() {
+    RowBitmap bitmap = RowBitmap.of(70_000, 3, 1, 3);
+    Assert.assertEquals(3, bitmap.cardinality());
+    Assert.assertArrayEquals(new int[] {1, 3, 70_000}, bitmap.toArray());
+    Assert.assertTrue(bitmap.contains(70_000));
+    Assert.assertFalse(bitmap.contains(2));
+    Assert.assertEquals("{1, 3, 70000}", bitmap.toString());
+    Assert.assertEquals(RowBitmap.of(1, 3, 70_000), bitmap);
+    Assert.assertTrue(new RowBitmap().isEmpty());
+    Assert.assertTrue(RowBitmap.range(5, 5).isEmpty());
+    Assert.assertEquals(RowBitmap.of(), RowBitmap.of(1).andNot(RowBitmap.of(1)));
+  }
+
+  @Test
+  public void containerTransitionTest() {
+    // A dense range switches to bitmap containers and back to arrays once thinned out,
+    // and equal sets compare equal whichever container holds them
+    RowBitmap dense = RowBitmap.range(10, 200_000);
+    Assert.assertEquals(199_990, dense.cardinality());
+    RowBitmap added = new RowBitmap();
+    for (int row = 10; row < 200_000; row++) {
+      added.add(row);
+    }
+    Assert.assertEquals(dense, added);
+    Assert.assertEquals(dense.hashCode(), added.hashCode());
+    Assert.assertTrue(dense.bytes() < 4L * dense.cardinality());
+
+    RowBitmap sparse = dense.and(RowBitmap.of(10, 65_535, 65_536, 199_999, 200_000));
+    Assert.assertArrayEquals(new int[] {10, 65_535, 65_536, 199_999}, sparse.toArray());
+    Assert.assertEquals(RowBitmap.of(9, 200_000), RowBitmap.range(9, 200_001).andNot(dense));
+  }
+
+  @Test
+  public void fromWordsTest() {
+    BitSet oracle = new BitSet();
+    Random random = new Random(1);
+    for (int i = 0; i < 50_000; i++) {
+      oracle.set(random.nextInt(300_000));
+    }
+    for (int row = 100_000; row < 140_000; row++) {
+      oracle.set(row);
+    }
+    RowBitmap bitmap = RowBitmap.fromWords(oracle.toLongArray());
+    Assert.assertEquals(oracle, bits(bitmap));
+    Assert.assertEquals(oracle.cardinality(), bitmap.cardinality());
+    Assert.assertArrayEquals(oracle.stream().toArray(), bitmap.stream().toArray());
+    for (int from : new int[] {-1, 0, 65_535, 65_536, 99_999, 139_999, 140_000, 299_999, 400_000}) {
+      Assert.assertEquals(oracle.nextSetBit(Math.max(from, 0)), bitmap.nextRow(from));
+    }
+  }
+
+  @Test
+  public void randomOperationsTest() {
+    // and, or and andNot agree with BitSet for sparse, dense and mixed operands
+    Random random = new Random(7);
+    int[][] shapes = {{1_000, 50}, {100_000, 200}, {100_000, 20_000}, {300_000, 150_000}};
+    for (int[] left : shapes) {
+      for (int[] right : shapes) {
+        BitSet leftBits = new BitSet();
+        BitSet rightBits = new BitSet();
+        RowBitmap a = randomBitmap(random, leftBits, left[0], left[1]);
+        RowBitmap b = randomBitmap(random, rightBits, right[0], right[1]);
+        String shape = Arrays.toString(left) + " " + Arrays.toString(right);
+
+        BitSet and = (BitSet) leftBits.clone();
+        and.and(rightBits);
+        BitSet or = (BitSet) leftBits.clone();
+        or.or(rightBits);
+        BitSet andNot = (BitSet) leftBits.clone();
+        andNot.andNot(rightBits);
+
+        Assert.assertEquals(shape, and, bits(a.and(b)));
+        Assert.assertEquals(shape, and.cardinality(), a.and(b).cardinality());
+        Assert.assertEquals(shape, or, bits(a.or(b)));
+        Assert.assertEquals(shape, or.cardinality(), a.or(b).cardinality());
+        Assert.assertEquals(shape, andNot, bits(a.andNot(b)));
+        Assert.assertEquals(shape, andNot.cardinality(), a.andNot(b).cardinality());
+        // the operands are left unchanged
+        Assert.assertEquals(shape, leftBits, bits(a));
+        Assert.assertEquals(shape, rightBits, bits(b));
+        for (int i = 0; i < 100; i++) {
+          int row = random.nextInt(left[0]);
+          Assert.assertEquals(shape, leftBits.get(row), a.contains(row));
+          Assert.assertEquals(shape, leftBits.nextSetBit(row), a.nextRow(row));
+        }
+      }
+    }
+  }
+}
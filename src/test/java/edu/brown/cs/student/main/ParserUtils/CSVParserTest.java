@@ -5,7 +5,9 @@ import edu.brown.cs.student.main.CreatorFromRow.StrListCreatorFromRow;
 import edu.brown.cs.student.main.Exceptions.FactoryFailureException;
 import java.io.*;
 import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import edu.brown.cs.student.main.ParserUtils.CSVParser;
 import org.junit.Assert;
@@ -38,6 +40,61 @@ public class CSVParserTest {
     Assert.assertEquals(Arrays.asList("Apple", " pie.", "\"Well, I don't think so.\""), row);
   }
 
+  @Test
+  public void parseQuotedNewlineTest() throws FactoryFailureException {
+    // Line breaks and escaped quotes inside a quoted field do not end the record
+    StringReader reader = new StringReader("a,\"line one\nline \"\"two\"\"\",c\r\nd,e,f\r\n");
+    csv = new CSVParser<>(new BufferedReader(reader), new StrListCreatorFromRow());
+    List<List<String>> mtrx = csv.parse();
+    Assert.assertEquals(2, mtrx.size());
+    Assert.assertEquals(Arrays.asList("a", "\"line one\nline \"\"two\"\"\"", "c"), mtrx.get(0));
+    Assert.assertEquals(Arrays.asList("d", "e", "f"), mtrx.get(1));
+  }
+
+  @Test
+  public void parseEmptyFieldsTest() throws FactoryFailureException {
+    // Empty fields are kept, including trailing ones
+    StringReader reader = new StringReader(",b,,\n\n1,2,3,4");
+    csv = new CSVParser<>(new BufferedReader(reader), new StrListCreatorFromRow());
+    List<List<String>> mtrx = csv.parse();
+    Assert.assertEquals(3, mtrx.size());
+    Assert.assertEquals(Arrays.asList("", "b", "", ""), mtrx.get(0));
+    Assert.assertEquals(Arrays.asList(""), mtrx.get(1));
+    Assert.assertEquals(Arrays.asList("1", "2", "3", "4"), mtrx.get(2));
+  }
+
+  @Test
+  public void parseBomTest() throws FactoryFailureException {
+    // A leading byte order mark is not part of the first field, as in MappedCSVParser
+    csv = new CSVParser<>(new StringReader("\uFEFFid,name\n1,x"), new StrListCreatorFromRow());
+    Assert.assertEquals(Arrays.asList("id", "name"), csv.parse().get(0));
+    csv = new CSVParser<>(new StringReader("\uFEFF"), new StrListCreatorFromRow());
+    Assert.assertEquals(Arrays.asList(), csv.parse());
+    csv = new CSVParser<>(new StringReader("id,\uFEFF"), new StrListCreatorFromRow());
+    Assert.assertEquals(Arrays.asList("id", "\uFEFF"), csv.parse().get(0));
+  }
+
+  @Test
+  public void iteratorTest() {
+    // Rows are pulled one at a time and the iterator ends after the last record
+    StringReader reader = new StringReader("a,b\nc,d\n");
+    csv = new CSVParser<>(new BufferedReader(reader), new StrListCreatorFromRow());
+    Iterator<List<String>> rows = csv.iterator();
+    Assert.assertTrue(rows.hasNext());
+    Assert.assertEquals(Arrays.asList("a", "b"), rows.next());
+    Assert.assertEquals(Arrays.asList("c", "d"), rows.next());
+    Assert.assertFalse(rows.hasNext());
+  }
+
+  @Test
+  public void streamTest() {
+    // The stream yields the same rows as parse(), lazily
+    StringReader reader = new StringReader("x,1\ny,2\nz,3");
+    csv = new CSVParser<>(new BufferedReader(reader), new StrListCreatorFromRow());
+    List<String> firstCol = csv.stream().map(row -> row.get(0)).collect(Collectors.toList());
+    Assert.assertEquals(Arrays.asList("x", "y", "z"), firstCol);
+  }
+
   @Test
   public void parseNullTest() throws FactoryFailureException {
     StringReader reader = new StringReader("");
@@ -0,0 +1,85 @@
+package edu.brown.cs.student.main.ParserUtils;
+
+import edu.brown.cs.student.main.CreatorFromRow.StrListCreatorFromRow;
+import edu.brown.cs.student.main.Exceptions.FactoryFailureException;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class MappedCSVParserTest {
+
+  Path file;
+
+  @Before
+  public void setup() throws IOException {
+    file = Files.createTempFile("mapped", ".csv");
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    Files.deleteIfExists(file);
+  }
+
+  private List<List<String>> parse(String contents, long windowSize)
+      throws IOException, FactoryFailureException {
+    Files.write(file, contents.getBytes(StandardCharsets.UTF_8));
+    return new MappedCSVParser<>(file, new StrListCreatorFromRow(), windowSize).parse();
+  }
+
+  @Test
+  public void parseTest() throws IOException, FactoryFailureException {
+    // Quoted commas and multi-byte characters survive byte-level tokenizing
+    List<List<String>> mtrx = parse("Town,Income\r\nSão Paulo,\"74,489.00\"\r\n", Long.MAX_VALUE);
+    Assert.assertEquals(2, mtrx.size());
+    Assert.assertEquals(Arrays.asList("Town", "Income"), mtrx.get(0));
+    Assert.assertEquals(Arrays.asList("São Paulo", "\"74,489.00\""), mtrx.get(1));
+  }
+
+  @Test
+  public void parseMatchesReaderTest() throws IOException, FactoryFailureException {
+    // Small windows force records to straddle window boundaries, including a split "\r\n"
+    String contents = "a,\"b\r\nc\",d\r\n\r\nx,,\"y\"\"z\"\re,f,g";
+    List<List<String>> expected =
+        new CSVParser<>(new StringReader(contents), new StrListCreatorFromRow()).parse();
+    for (long window = 13; window <= 20; window++) {
+      Assert.assertEquals(expected, parse(contents, window));
+    }
+    Assert.assertEquals(expected, parse(contents, Long.MAX_VALUE));
+  }
+
+  @Test
+  public void parseBomTest() throws IOException, FactoryFailureException {
+    // A leading UTF-8 byte order mark is not part of the first field
+    List<List<String>> mtrx = parse("\uFEFFid,name\n1,x", Long.MAX_VALUE);
+    Assert.assertEquals(Arrays.asList("id", "name"), mtrx.get(0));
+  }
+
+  @Test
+  public void parseEmptyTest() throws IOException, FactoryFailureException {
+    Assert.assertEquals(Arrays.asList(), parse("", Long.MAX_VALUE));
+  }
+
+  @Test(expected = IOException.class)
+  public void parseRecordTooLargeTest() throws IOException, FactoryFailureException {
+    // A record that does not fit in a window cannot be tokenized
+    parse("abcdefgh,ijklmnop\nq", 4);
+  }
+
+  @Test
+  public void bytesReadTest() throws IOException, FactoryFailureException {
+    // Progress reaches the file size once every window has been parsed
+    Files.write(file, "a,b\nc,d\ne,f\n".getBytes(StandardCharsets.UTF_8));
+    MappedCSVParser<List<String>> parser = new MappedCSVParser<>(file, new StrListCreatorFromRow(), 5);
+    Assert.assertEquals(0, parser.bytesRead());
+    Assert.assertEquals(3, parser.parse().size());
+    Assert.assertEquals(12, parser.bytesRead());
+  }
+}
@@ -0,0 +1,75 @@
+package edu.brown.cs.student.main.ParserUtils;
+
+import edu.brown.cs.student.main.CreatorFromRow.StrListCreatorFromRow;
+import edu.brown.cs.student.main.Exceptions.FactoryFailureException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ParallelCSVParserTest {
+
+  Path file;
+
+  @Before
+  public void setup() throws IOException {
+    file = Files.createTempFile("parallel", ".csv");
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    Files.deleteIfExists(file);
+  }
+
+  /**
+   * Checks that every chunk size yields the same rows as the sequential mapped parser.
+   *
+   * @param contents - the file contents.
+   */
+  private void assertMatchesSequential(String contents) throws IOException, FactoryFailureException {
+    Files.write(file, contents.getBytes(StandardCharsets.UTF_8));
+    List<List<String>> expected = new MappedCSVParser<>(file, new StrListCreatorFromRow()).parse();
+    for (long chunk = 1; chunk <= 40; chunk++) {
+      ParallelCSVParser<List<String>> parser =
+          new ParallelCSVParser<>(file, new StrListCreatorFromRow(), chunk);
+      Assert.assertEquals("chunk size " + chunk, expected, parser.parse());
+      Assert.assertEquals(Files.size(file) - (contents.startsWith("\uFEFF") ? 3 : 0), parser.bytesRead());
+    }
+  }
+
+  @Test
+  public void quotedLineBreaksTest() throws IOException, FactoryFailureException {
+    // Cuts inside quoted fields, "\r\n" pairs and blank lines never split or merge records
+    assertMatchesSequential("a,\"b\r\nc\",d\r\n\r\nx,,\"y\"\"z\n\"\re,f,g\n\"\n\n\",São\n");
+  }
+
+  @Test
+  public void bomAndNoTrailingNewlineTest() throws IOException, FactoryFailureException {
+    assertMatchesSequential("\uFEFFTown,Income\nBarrington,\"130,455.00\"\nBristol,\"80,000\"");
+  }
+
+  @Test
+  public void randomTest() throws IOException, FactoryFailureException {
+    // Random mixes of quotes, commas and line breaks parse the same as sequentially
+    Random random = new Random(42);
+    String[] pieces = {"a", "bc", ",", "\n", "\r\n", "\"q,\"", "\"l\nm\"", "\"\"\"\"", "é"};
+    for (int trial = 0; trial < 20; trial++) {
+      StringBuilder contents = new StringBuilder();
+      for (int i = 0; i < 30; i++) {
+        contents.append(pieces[random.nextInt(pieces.length)]);
+      }
+      assertMatchesSequential(contents.toString());
+    }
+  }
+
+  @Test
+  public void emptyTest() throws IOException, FactoryFailureException {
+    Assert.assertTrue(new ParallelCSVParser<>(file, new StrListCreatorFromRow()).parse().isEmpty());
+  }
+}
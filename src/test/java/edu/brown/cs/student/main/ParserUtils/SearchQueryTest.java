@@ -0,0 +1,99 @@
+package edu.brown.cs.student.main.ParserUtils;
+
+import edu.brown.cs.student.main.DataSource.CSVData;
+import edu.brown.cs.student.main.DataSource.RowBitmap;
+import edu.brown.cs.student.main.Exceptions.ColumnConversionException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SearchQueryTest {
+
+  private static final List<List<String>> TOWNS =
+      Arrays.asList(
+          Arrays.asList("Town", "County", "Income"),
+          Arrays.asList("Barrington", "Bristol", "\"130,455.00\""),
+          Arrays.asList("Bristol", "Bristol", "\"80,000.00\""),
+          Arrays.asList("Central Falls", "Providence", "\"40,078.00\""),
+          Arrays.asList("Warwick", "Kent", "\"77,637.00\""),
+          Arrays.asList("East Providence", "Providence", "\"60,000.00\""));
+
+  private static RowBitmap rows(int... rows) {
+    return RowBitmap.of(rows);
+  }
+
+  private static UtilitySearch search(List<List<String>> mtrx, UtilitySearch.Options header) {
+    return new UtilitySearch(new CSVData(mtrx, 1 << 20), new UtilitySearch.Options[] {
+      header, UtilitySearch.Options.NONE, UtilitySearch.Options.NONE
+    });
+  }
+
+  private static RowBitmap run(String query) throws ColumnConversionException {
+    return SearchQuery.parse(query).evaluate(search(TOWNS, UtilitySearch.Options.HEADER));
+  }
+
+  @Test
+  public void parseTest() {
+    // Operators bind NOT, AND, OR from tightest to loosest; adjacent terms are ANDed
+    Assert.assertEquals("((\"County\":\"bristol\" AND NOT \"Town\":\"bar\") OR \"kent\")",
+        SearchQuery.parse("County:bristol AND NOT Town:bar OR kent").toString());
+    Assert.assertEquals("(\"a\" AND (\"b\" OR \"c\"))", SearchQuery.parse("a (b OR c)").toString());
+    Assert.assertEquals("\"Income\":gt 80000", SearchQuery.parse("Income:>80000").toString());
+    Assert.assertEquals("\"Income\":le 80000", SearchQuery.parse("Income:<= 80000").toString());
+    Assert.assertEquals("\"x y\":1..2", SearchQuery.parse("\"x y\":1..2").toString());
+    Assert.assertEquals("\"Town\":\">AND\"", SearchQuery.parse("Town:\">AND\"").toString());
+    for (String bad : new String[] {"", "a AND", "(a", "a)", "Town:", "\"open", "OR a", "NOT"}) {
+      Assert.assertThrows(bad, IllegalArgumentException.class, () -> SearchQuery.parse(bad));
+    }
+    // deep nesting is refused up front rather than overflowing the stack
+    int depth = SearchQuery.MAX_DEPTH;
+    Assert.assertEquals("\"a\"", SearchQuery.parse("(".repeat(depth) + "a" + ")".repeat(depth)).toString());
+    for (String deep : new String[] {
+        "(".repeat(3000) + "a" + ")".repeat(3000), "NOT ".repeat(8000) + "a", "NOT (".repeat(depth) + "a"}) {
+      IllegalArgumentException e =
+          Assert.assertThrows(IllegalArgumentException.class, () -> SearchQuery.parse(deep));
+      Assert.assertEquals("Query nested too deeply", e.getMessage());
+    }
+  }
+
+  @Test
+  public void evaluateTest() throws ColumnConversionException {
+    Assert.assertEquals(rows(1, 2), run("County:bristol"));
+    Assert.assertEquals(rows(1), run("County:bristol AND NOT Town:Bristol"));
+    Assert.assertEquals(rows(1, 2, 4), run("County:Bristol OR County:kent"));
+    Assert.assertEquals(rows(3, 4, 5), run("NOT County:Bristol"));
+    Assert.assertEquals(rows(2, 4), run("Income:>=77637 Income:<=80000"));
+    Assert.assertEquals(rows(3, 5), run("providence AND Income:40000..70000"));
+    Assert.assertEquals(rows(5), run("Income:<100000 AND (Town:east OR Town:west) AND NOT kent"));
+    Assert.assertEquals(rows(), run("County:kent AND County:bristol"));
+    // the header row never matches, even when it contains the value
+    Assert.assertEquals(rows(), run("Town:town"));
+    Assert.assertThrows(ColumnConversionException.class, () -> run("Population:1"));
+    Assert.assertThrows(NumberFormatException.class, () -> run("Income:>lots"));
+  }
+
+  @Test
+  public void randomQueryTest() throws ColumnConversionException {
+    // Planned evaluation agrees with testing every row against the query directly
+    Random random = new Random(3);
+    List<List<String>> mtrx = new ArrayList<>();
+    for (int i = 0; i < 3_000; i++) {
+      mtrx.add(Arrays.asList("k" + random.nextInt(5), "v" + random.nextInt(50), "" + random.nextInt(100)));
+    }
+    UtilitySearch search = search(mtrx, UtilitySearch.Options.NONE);
+    for (int k = 0; k < 5; k++) {
+      String query = "0:k" + k + " AND NOT 1:v1 OR (2:<" + (k * 20) + " AND 1:v" + k + ")";
+      RowBitmap expected = new RowBitmap();
+      for (int row = 0; row < mtrx.size(); row++) {
+        List<String> cells = mtrx.get(row);
+        boolean left = cells.get(0).equals("k" + k) && !cells.get(1).contains("v1");
+        boolean right = Integer.parseInt(cells.get(2)) < k * 20 && cells.get(1).contains("v" + k);
+        if (left || right) expected.add(row);
+      }
+      Assert.assertEquals(query, expected, SearchQuery.parse(query).evaluate(search));
+    }
+  }
+}
@@ -1,6 +1,9 @@
 package edu.brown.cs.student.main.ParserUtils;
 
 import edu.brown.cs.student.main.CreatorFromRow.StrListCreatorFromRow;
+import edu.brown.cs.student.main.DataSource.CSVData;
+import edu.brown.cs.student.main.DataSource.TypedColumn;
+import edu.brown.cs.student.main.DataSource.RowBitmap;
 import edu.brown.cs.student.main.Exceptions.ColumnConversionException;
 import edu.brown.cs.student.main.Exceptions.FactoryFailureException;
 import edu.brown.cs.student.main.ParserUtils.CSVParser;
@@ -13,6 +16,7 @@ import java.io.BufferedReader;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 public class UtilitySearchTest {
@@ -255,4 +259,180 @@ public class UtilitySearchTest {
             });
     search.convertStringToInt("Year");
   }
+
+  @Test
+  public void searchAllRowsTest() {
+    // searchAll collects every matching row in one pass, skipping the header row
+    List<List<String>> small =
+        Arrays.asList(
+            Arrays.asList("Town", "County"),
+            Arrays.asList("Bristol", "Bristol"),
+            Arrays.asList("Warwick", "Kent"),
+            Arrays.asList("Barrington", "Bristol"));
+    search =
+        new UtilitySearch(
+            small,
+            new UtilitySearch.Options[] {
+              UtilitySearch.Options.HEADER,
+              UtilitySearch.Options.NONE,
+              UtilitySearch.Options.MTCH_LOCK
+            });
+    Assert.assertEquals(RowBitmap.of(1, 3), search.searchAll("bristol", "County"));
+    Assert.assertEquals(RowBitmap.of(1), search.searchAll("Bristol", "Town"));
+    Assert.assertEquals(RowBitmap.of(1, 3), search.searchAll("Bristol"));
+    Assert.assertTrue(search.searchAll("Bristol", "Population").isEmpty());
+  }
+
+  @Test
+  public void searchAllTrigramTest() {
+    // Substring searches give the same rows with and without a trigram index
+    List<List<String>> small =
+        Arrays.asList(
+            Arrays.asList("Town", "County"),
+            Arrays.asList("North Providence", "Providence"),
+            Arrays.asList("Warwick", "Kent"),
+            Arrays.asList("East Providence", "Providence"));
+    UtilitySearch.Options[] options = {
+      UtilitySearch.Options.HEADER, UtilitySearch.Options.CASE_SEN, UtilitySearch.Options.NONE
+    };
+    UtilitySearch plain = new UtilitySearch(new CSVData(small), options);
+    UtilitySearch indexed = new UtilitySearch(new CSVData(small, 1 << 20), options);
+    for (String val : new String[] {"Providence", "providence", "wick", "Ken", "rth P", "Tow"}) {
+      Assert.assertEquals(plain.searchAll(val), indexed.searchAll(val));
+      Assert.assertEquals(plain.searchAll(val, "Town"), indexed.searchAll(val, "Town"));
+    }
+    Assert.assertEquals(RowBitmap.of(1, 3), indexed.searchAll("Providence"));
+  }
+
+  @Test
+  public void searchAllParallelTest() {
+    // Parallel scans return the same rows, in the same order, as sequential scans
+    List<List<String>> big = new ArrayList<>();
+    for (int i = 0; i < 50_000; i++) {
+      big.add(Arrays.asList("row" + i, i % 7 == 0 ? "Seven" : "other"));
+    }
+    UtilitySearch.Options[] options = {
+      UtilitySearch.Options.NONE, UtilitySearch.Options.NONE, UtilitySearch.Options.NONE
+    };
+    CSVData data = new CSVData(big);
+    UtilitySearch sequential = new UtilitySearch(data, options);
+    UtilitySearch parallel = new UtilitySearch(data, options);
+    parallel.setParallel(true);
+    Assert.assertEquals(sequential.searchAll("seven", "1"), parallel.searchAll("seven", "1"));
+    Assert.assertEquals(sequential.searchAll("row49"), parallel.searchAll("row49"));
+    Assert.assertEquals(50_000 / 7 + 1, parallel.searchAll("SEVEN").cardinality());
+    Assert.assertEquals(49_999, parallel.searchAll("row49999").toArray()[0]);
+  }
+
+  @Test
+  public void searchTypedColumnsTest() throws ColumnConversionException {
+    // Typed columns match exactly the rows their text would, exact or not, in any case
+    List<List<String>> small = new ArrayList<>();
+    small.add(Arrays.asList("Town", "Income", "Count", "Big", "Date", "Opened"));
+    for (int i = 0; i < 300; i++) {
+      small.add(Arrays.asList(
+          "Town" + i,
+          String.format("\"%,d.%02d\"", i * 1234, i % 100),
+          Integer.toString(i - 100),
+          Long.toString(5_000_000_000_000_000L / 300 * i - 2_000_000_000_000_000_000L),
+          String.format("%d/%d/2021", i % 12 + 1, i % 28 + 1),
+          String.format("%04d-%02d-%02d", 990 + i * 7, i % 12 + 1, i % 28 + 1)));
+    }
+    small.add(Arrays.asList("Total", "N/A", "n/a", "", "Unknown", "Soon"));
+    String[] values = {"\"1,234.01\"", "1,234", "234.0", "-99", "-1", "0", "5", "/2021", "3/3/2021",
+        "03/3/2021", "0997-02-02", "-09", "n/a", "N/A", "total", "Soon", "\"", "1234.01", ","};
+    for (int col = 1; col < 6; col++) {
+      Assert.assertTrue(new CSVData(small, 0, true).column(col) instanceof TypedColumn);
+    }
+    for (UtilitySearch.Options caseSen : new UtilitySearch.Options[] {
+        UtilitySearch.Options.CASE_SEN, UtilitySearch.Options.NONE}) {
+      for (UtilitySearch.Options exact : new UtilitySearch.Options[] {
+          UtilitySearch.Options.MTCH_LOCK, UtilitySearch.Options.NONE}) {
+        UtilitySearch.Options[] options = {UtilitySearch.Options.HEADER, caseSen, exact};
+        UtilitySearch text = new UtilitySearch(new CSVData(small), options);
+        UtilitySearch typed = new UtilitySearch(new CSVData(small, 0, true), options);
+        for (String val : values) {
+          Assert.assertEquals(val, text.searchAll(val), typed.searchAll(val));
+          Assert.assertEquals(val, text.search(val), typed.search(val));
+          for (int col = 1; col < 6; col++) {
+            String colStr = Integer.toString(col);
+            Assert.assertEquals(val, text.searchAll(val, colStr), typed.searchAll(val, colStr));
+            Assert.assertEquals(val, text.search(val, colStr), typed.search(val, colStr));
+            Assert.assertEquals(val, text.textFilter(val, colStr).rows(),
+                typed.textFilter(val, colStr).rows());
+          }
+        }
+      }
+    }
+  }
+
+  @Test
+  public void searchRangeTest() throws ColumnConversionException {
+    // Comparisons read quoted, grouped numbers the same whether or not the column is typed
+    List<List<String>> small =
+        Arrays.asList(
+            Arrays.asList("Town", "Income", "Opened"),
+            Arrays.asList("Barrington", "\"130,455.00\"", "2001-05-04"),
+            Arrays.asList("Bristol", "\"80,000.00\"", "1999-12-31"),
+            Arrays.asList("Central Falls", "\"40,078.00\"", "2010-01-15"),
+            Arrays.asList("Warwick", "unknown", "2001-05-04"));
+    UtilitySearch.Options[] options = {
+      UtilitySearch.Options.HEADER, UtilitySearch.Options.NONE, UtilitySearch.Options.NONE
+    };
+    for (boolean types : new boolean[] {false, true}) {
+      UtilitySearch search = new UtilitySearch(new CSVData(small, 0, types), options);
+      UtilitySearch.Comparison gt = UtilitySearch.Comparison.of(">");
+      Assert.assertEquals(RowBitmap.of(1), search.searchRange(gt, "80000", null, "Income"));
+      Assert.assertEquals(RowBitmap.of(1, 2),
+          search.searchRange(UtilitySearch.Comparison.GE, "80,000", null, "Income"));
+      Assert.assertEquals(RowBitmap.of(3),
+          search.searchRange(UtilitySearch.Comparison.LT, "80000", null, "1"));
+      Assert.assertEquals(RowBitmap.of(2),
+          search.searchRange(UtilitySearch.Comparison.EQ, "80000", null, "Income"));
+      Assert.assertEquals(RowBitmap.of(2, 3),
+          search.searchRange(UtilitySearch.Comparison.BETWEEN, "40078", "80000", "Income"));
+      Assert.assertTrue(search.searchRange(UtilitySearch.Comparison.LE, "0", null, "Income").isEmpty());
+      Assert.assertThrows(NumberFormatException.class,
+          () -> search.searchRange(UtilitySearch.Comparison.BETWEEN, "1", null, "Income"));
+      Assert.assertThrows(NumberFormatException.class,
+          () -> search.searchRange(UtilitySearch.Comparison.GT, "lots", null, "Income"));
+      Assert.assertThrows(ColumnConversionException.class,
+          () -> search.searchRange(UtilitySearch.Comparison.GT, "1", null, "Population"));
+    }
+    // a typed date column compares dates, in its own layout or as yyyy-MM-dd
+    List<List<String>> dated = new ArrayList<>();
+    RowBitmap early = new RowBitmap();
+    for (int i = 0; i < 40; i++) {
+      dated.add(Arrays.asList(String.format("%d/%d/2021", i % 12 + 1, i % 28 + 1)));
+      if (i % 12 + 1 < 3 || (i % 12 + 1 == 3 && i % 28 + 1 <= 3)) early.add(i);
+    }
+    UtilitySearch search = new UtilitySearch(new CSVData(dated, 0, true), new UtilitySearch.Options[] {
+      UtilitySearch.Options.NONE, UtilitySearch.Options.NONE, UtilitySearch.Options.NONE
+    });
+    Assert.assertEquals(early, search.searchRange(UtilitySearch.Comparison.LE, "3/3/2021", null, "0"));
+    Assert.assertEquals(early, search.searchRange(UtilitySearch.Comparison.LE, "2021-03-03", null, "0"));
+    Assert.assertNull(UtilitySearch.Comparison.of("like"));
+  }
+
+  @Test
+  public void searchRangeRandomTest() throws ColumnConversionException {
+    // The sorted index returns exactly the rows a scan would, including duplicates and negatives
+    java.util.Random random = new java.util.Random(7);
+    List<List<String>> rows = new ArrayList<>();
+    for (int i = 0; i < 5_000; i++) {
+      rows.add(Arrays.asList(Integer.toString(random.nextInt(200) - 100)));
+    }
+    UtilitySearch search = new UtilitySearch(new CSVData(rows), new UtilitySearch.Options[] {
+      UtilitySearch.Options.NONE, UtilitySearch.Options.NONE, UtilitySearch.Options.NONE
+    });
+    for (int lo = -101; lo <= 101; lo += 17) {
+      RowBitmap expected = new RowBitmap();
+      for (int row = 0; row < rows.size(); row++) {
+        int value = Integer.parseInt(rows.get(row).get(0));
+        if (value > lo && value <= lo + 40) expected.add(row);
+      }
+      RowBitmap between = search.searchRange(UtilitySearch.Comparison.BETWEEN, "" + lo, "" + (lo + 40), "0");
+      Assert.assertEquals(expected, between.andNot(search.searchRange(UtilitySearch.Comparison.EQ, "" + lo, null, "0")));
+    }
+  }
 }
@@ -0,0 +1,120 @@
+package edu.brown.cs.student.main.Server;
+
+import edu.brown.cs.student.main.DataSource.CSVData;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ColumnarEncoderTest {
+
+  /**
+   * Decodes the columnar format back into rows.
+   *
+   * @param bytes - the encoded bytes.
+   * @return - the decoded rows.
+   * @throws IOException - if the bytes are truncated.
+   */
+  private static List<List<String>> decode(byte[] bytes) throws IOException {
+    DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+    byte[] magic = new byte[4];
+    in.readFully(magic);
+    Assert.assertEquals("CSVC", new String(magic, StandardCharsets.US_ASCII));
+    Assert.assertEquals(1, in.readByte());
+    int rows = in.readInt();
+    int cols = in.readInt();
+    String[][] cells = new String[rows][cols];
+    for (int col = 0; col < cols; col++) {
+      if (in.readByte() == 0) {
+        for (int row = 0; row < rows; row++) {
+          cells[row][col] = readString(in);
+        }
+      } else {
+        String[] dictionary = new String[in.readInt()];
+        for (int code = 1; code < dictionary.length; code++) {
+          dictionary[code] = readString(in);
+        }
+        int width = in.readByte();
+        for (int row = 0; row < rows; row++) {
+          int code = width == 1 ? in.readUnsignedByte()
+              : width == 2 ? in.readUnsignedShort() : in.readInt();
+          cells[row][col] = dictionary[code];
+        }
+      }
+    }
+    Assert.assertEquals(-1, in.read());
+    List<List<String>> result = new ArrayList<>();
+    for (String[] row : cells) {
+      result.add(Arrays.asList(row));
+    }
+    return result;
+  }
+
+  /**
+   * Reads a length-prefixed UTF-8 string.
+   *
+   * @param in - the stream to read from.
+   * @return - the string, or null for a missing cell.
+   * @throws IOException - if the bytes are truncated.
+   */
+  private static String readString(DataInputStream in) throws IOException {
+    int length = in.readInt();
+    if (length < 0) {
+      return null;
+    }
+    byte[] bytes = new byte[length];
+    in.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  @Test
+  public void roundTripTest() throws IOException {
+    // Plain and dictionary columns decode to the same cells, with missing cells as null
+    List<List<String>> mtrx = new ArrayList<>();
+    for (int i = 0; i < 300; i++) {
+      mtrx.add(i % 10 == 0 ? Arrays.asList("town" + (i % 3)) : Arrays.asList("town" + (i % 3), "é" + i));
+    }
+    CSVData data = new CSVData(mtrx);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    ColumnarEncoder.write(data, new int[] {0, 1, 2, 3, 10}, new int[] {1, 0}, out);
+    Assert.assertEquals(
+        Arrays.asList(
+            Arrays.asList(null, "town0"), Arrays.asList("é1", "town1"), Arrays.asList("é2", "town2"),
+            Arrays.asList("é3", "town0"), Arrays.asList(null, "town1")),
+        decode(out.toByteArray()));
+
+    out.reset();
+    int[] all = new int[300];
+    for (int i = 0; i < all.length; i++) {
+      all[i] = i;
+    }
+    ColumnarEncoder.write(data, all, new int[] {0, 1}, out);
+    List<List<String>> decoded = decode(out.toByteArray());
+    for (int i = 0; i < all.length; i++) {
+      Assert.assertEquals(data.get(i, 0), decoded.get(i).get(0));
+      Assert.assertEquals(data.get(i, 1), decoded.get(i).get(1));
+    }
+  }
+
+  @Test
+  public void emptyTest() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    ColumnarEncoder.write(new CSVData(new ArrayList<>()), new int[0], new int[0], out);
+    Assert.assertEquals(new ArrayList<>(), decode(out.toByteArray()));
+  }
+
+  @Test
+  public void varyTest() {
+    // Accept joins the fields a response already varies on, once
+    Assert.assertEquals("Accept", ColumnarEncoder.varyOnAccept((String) null));
+    Assert.assertEquals("Accept, Accept-Encoding", ColumnarEncoder.varyOnAccept("Accept-Encoding"));
+    Assert.assertEquals("Accept-Encoding, accept", ColumnarEncoder.varyOnAccept("Accept-Encoding, accept"));
+    Assert.assertEquals("*", ColumnarEncoder.varyOnAccept("*"));
+  }
+}
@@ -0,0 +1,34 @@
+package edu.brown.cs.student.main.Server;
+
+import edu.brown.cs.student.main.DataSource.CSVData;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ConditionalRequestsTest {
+
+  @Test
+  public void etagTest() {
+    // Each dataset, and each format of it, gets its own ETag
+    List<List<String>> mtrx = Arrays.asList(Arrays.asList("Town"), Arrays.asList("Warwick"));
+    CSVData first = new CSVData(mtrx);
+    CSVData second = new CSVData(mtrx);
+    Assert.assertTrue(second.version() > first.version());
+    Assert.assertEquals(ConditionalRequests.etag(first, false), ConditionalRequests.etag(first, false));
+    Assert.assertNotEquals(ConditionalRequests.etag(first, false), ConditionalRequests.etag(second, false));
+    Assert.assertNotEquals(ConditionalRequests.etag(first, false), ConditionalRequests.etag(first, true));
+  }
+
+  @Test
+  public void matchesTest() {
+    // If-None-Match may list several tags, with or without the weak prefix, or be "*"
+    String etag = "W/\"abc-1\"";
+    Assert.assertTrue(ConditionalRequests.matches("W/\"abc-1\"", etag));
+    Assert.assertTrue(ConditionalRequests.matches("\"abc-1\"", etag));
+    Assert.assertTrue(ConditionalRequests.matches("\"x\", W/\"abc-1\"", etag));
+    Assert.assertTrue(ConditionalRequests.matches("*", etag));
+    Assert.assertFalse(ConditionalRequests.matches("W/\"abc-2\"", etag));
+    Assert.assertFalse(ConditionalRequests.matches(null, etag));
+  }
+}
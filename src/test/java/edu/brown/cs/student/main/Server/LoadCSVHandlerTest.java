@@ -22,6 +22,9 @@ import java.io.FileReader;
 import java.io.IOException;
 import java.net.HttpURLConnection;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -31,6 +34,8 @@ import java.util.logging.Logger;
 
 import static org.junit.Assert.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 //import static org.mockito.Mockito.*;
 
 /**
@@ -235,4 +240,51 @@ public class LoadCSVHandlerTest {
     assertEquals(404, loadConnection.getResponseCode());
     loadConnection.disconnect();
   }
+
+  /**
+   * Writes a small CSV file whose middle row holds a byte that is not valid UTF-8.
+   *
+   * @return the file, below the memory-mapped load threshold
+   * @throws IOException if the file cannot be written
+   */
+  private Path invalidUtf8File() throws IOException {
+    StringBuilder csv = new StringBuilder("Town,County\n");
+    for (int i = 0; i < 5002; i++) {
+      csv.append("Town").append(i).append(",").append(i == 2500 ? "Caf\u0000" : "Kent").append("\n");
+    }
+    byte[] bytes = csv.toString().getBytes(StandardCharsets.UTF_8);
+    for (int i = 0; i < bytes.length; i++) {
+      if (bytes[i] == 0) {
+        bytes[i] = (byte) 0xE9; // Latin-1 e-acute
+      }
+    }
+    assertTrue(bytes.length < LoadCSVHandler.MAPPED_LOAD_THRESHOLD);
+    Path path = Files.createTempFile("latin1", ".csv");
+    path.toFile().deleteOnExit();
+    Files.write(path, bytes);
+    return path;
+  }
+
+  @Test
+  void testLoad_InvalidUtf8() throws IOException {
+    // A stray Latin-1 byte decodes to a replacement character instead of dropping the whole file
+    Path path = invalidUtf8File();
+    LoadCSVHandler handler = new LoadCSVHandler(csvDataSource);
+    assertNull(handler.load(path, path.toString(), null, null, false, null));
+    List<List<String>> mtrx = ((CSVDataSourceStub) csvDataSource).currentMatrix;
+    assertEquals(5003, mtrx.size());
+    assertEquals("Caf\uFFFD", mtrx.get(2501).get(1));
+  }
+
+  @Test
+  void testLoad_InvalidUtf8Async() throws IOException {
+    // Background loads decode the same way, and count every byte of the file
+    Path path = invalidUtf8File();
+    LoadJob job = new LoadJob("1", path.toString(), null, Files.size(path));
+    LoadCSVHandler handler = new LoadCSVHandler(csvDataSource);
+    assertNull(handler.load(path, path.toString(), null, null, false, job));
+    assertEquals(5003, ((CSVDataSourceStub) csvDataSource).currentMatrix.size());
+    assertEquals(5003, job.status().rowsParsed());
+    assertEquals(Files.size(path), job.status().bytesRead());
+  }
 }
@@ -0,0 +1,63 @@
+package edu.brown.cs.student.main.Server;
+
+import edu.brown.cs.student.main.CreatorFromRow.InterningCreatorFromRow;
+import edu.brown.cs.student.main.Exceptions.FactoryFailureException;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LoadJobTest {
+
+  @Test
+  public void progressTest() throws IOException {
+    // Bytes read through the counting stream and rows reported show up in the status
+    LoadJob job = new LoadJob("1", "data/x.csv", null, 10);
+    Assert.assertEquals("queued", job.status().state());
+    InputStream in = job.counting(new ByteArrayInputStream(new byte[10]));
+    Assert.assertEquals(LoadJob.State.PARSING, job.state());
+    in.read();
+    in.read(new byte[4], 0, 4);
+    job.rowParsed();
+    Assert.assertEquals(5, job.status().bytesRead());
+    Assert.assertEquals(1, job.status().rowsParsed());
+    in.read(new byte[8], 0, 8);
+    Assert.assertEquals(-1, in.read());
+    Assert.assertEquals(10, job.status().bytesRead());
+  }
+
+  @Test
+  public void finishedTest() {
+    // A job ends either done or failed with its message
+    LoadJob done = new LoadJob("1", "data/x.csv", "x", 0);
+    done.parsing(() -> 0);
+    done.storing();
+    Assert.assertEquals("storing", done.status().state());
+    done.finished(null);
+    Assert.assertEquals("done", done.status().state());
+    Assert.assertNull(done.status().msg());
+
+    LoadJob failed = new LoadJob("2", "data/y.csv", null, 0);
+    failed.finished("Parse error");
+    Assert.assertEquals(LoadJob.State.FAILED, failed.state());
+    Assert.assertEquals("Parse error", failed.status().msg());
+  }
+
+  @Test
+  public void internedTest() throws FactoryFailureException {
+    // Interning statistics are reported once recorded, and left out otherwise
+    LoadJob job = new LoadJob("1", "data/x.csv", null, 0);
+    Assert.assertNull(job.status().interning());
+    Assert.assertFalse(job.status().serialize().contains("interning"));
+    InterningCreatorFromRow interner = new InterningCreatorFromRow();
+    interner.create(Arrays.asList("a", "b"));
+    interner.create(Arrays.asList("a", "c"));
+    job.interned(interner.stats());
+    job.finished(null);
+    Assert.assertEquals(new InterningCreatorFromRow.Stats(1, 3, 0.25), job.status().interning());
+    Assert.assertTrue(job.status().serialize()
+        .contains("\"interning\":{\"hits\":1,\"misses\":3,\"hitRate\":0.25}"));
+  }
+}
@@ -0,0 +1,26 @@
+package edu.brown.cs.student.main.Server;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PageCursorTest {
+
+  @Test
+  public void roundTripTest() {
+    // A decoded token carries everything the encoded cursor did
+    PageCursor cursor = new PageCursor(200, 100, "City,2", 42);
+    Assert.assertEquals(cursor, PageCursor.decode(cursor.encode()));
+    PageCursor noCols = new PageCursor(0, 5, null, -7);
+    Assert.assertEquals(noCols, PageCursor.decode(noCols.encode()));
+  }
+
+  @Test
+  public void malformedTest() {
+    // Tokens that were not produced by encode() are rejected
+    Assert.assertThrows(IllegalArgumentException.class, () -> PageCursor.decode("not a cursor"));
+    Assert.assertThrows(IllegalArgumentException.class, () -> PageCursor.decode("MTox"));
+    Assert.assertThrows(
+        IllegalArgumentException.class,
+        () -> PageCursor.decode(new PageCursor(0, 1, null, 0).encode().substring(2)));
+  }
+}
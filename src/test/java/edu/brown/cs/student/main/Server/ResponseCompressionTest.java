@@ -0,0 +1,20 @@
+package edu.brown.cs.student.main.Server;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ResponseCompressionTest {
+
+  @Test
+  public void negotiateTest() {
+    // gzip is preferred, deflate is the fallback, and q=0 rules a coding out
+    Assert.assertEquals("gzip", ResponseCompression.negotiate("gzip, deflate, br"));
+    Assert.assertEquals("gzip", ResponseCompression.negotiate("deflate;q=0.5, GZIP"));
+    Assert.assertEquals("deflate", ResponseCompression.negotiate("deflate"));
+    Assert.assertEquals("deflate", ResponseCompression.negotiate("gzip;q=0, deflate"));
+    Assert.assertEquals("gzip", ResponseCompression.negotiate("*"));
+    Assert.assertNull(ResponseCompression.negotiate("identity"));
+    Assert.assertNull(ResponseCompression.negotiate("gzip;q=0"));
+    Assert.assertNull(ResponseCompression.negotiate(null));
+  }
+}